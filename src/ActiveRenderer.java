@@ -0,0 +1,57 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.function.Consumer;
+
+public class ActiveRenderer {
+    private static final int BUFFER_COUNT = 2;
+
+    private final Canvas canvas;
+    private BufferStrategy strategy;
+
+    public ActiveRenderer(int width, int height) {
+        canvas = new Canvas();
+        canvas.setPreferredSize(new Dimension(width, height));
+        canvas.setIgnoreRepaint(true);
+        // Keep keyboard focus on the Swing panel so its key bindings keep working.
+        canvas.setFocusable(false);
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    // Called from the game loop thread; draws a full frame and flips it to the screen.
+    public void render(Consumer<Graphics> painter) {
+        if (!canvas.isDisplayable()) return;
+        if (strategy == null) {
+            strategy = createStrategy();
+        }
+
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    painter.accept(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    private BufferStrategy createStrategy() {
+        BufferCapabilities flipping = new BufferCapabilities(
+                new ImageCapabilities(true),
+                new ImageCapabilities(true),
+                BufferCapabilities.FlipContents.UNDEFINED);
+        try {
+            canvas.createBufferStrategy(BUFFER_COUNT, flipping);
+        } catch (AWTException e) {
+            canvas.createBufferStrategy(BUFFER_COUNT);
+        }
+        return canvas.getBufferStrategy();
+    }
+}
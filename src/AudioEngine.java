@@ -0,0 +1,188 @@
+import javax.sound.sampled.*;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Software mixer: sounds are decoded once to 16-bit stereo PCM and mixed into a single
+// SourceDataLine on a dedicated thread. play() only enqueues, so any thread may call it.
+public class AudioEngine {
+    public static final float SAMPLE_RATE = 44100f;
+    private static final int CHANNELS = 2;
+    private static final int CHUNK_FRAMES = 256;
+    private static final int LINE_BUFFER_CHUNKS = 4;
+
+    private static final AudioFormat FORMAT = new AudioFormat(SAMPLE_RATE, 16, CHANNELS, true, false);
+
+    public static final class Sound {
+        private final short[] samples;
+
+        private Sound(short[] samples) {
+            this.samples = samples;
+        }
+
+        public int getFrameCount() {
+            return samples.length / CHANNELS;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Sound> commands = new ConcurrentLinkedQueue<>();
+    private final Sound[] voiceSounds;
+    private final int[] voicePositions;
+    private final int[] mixBuffer = new int[CHUNK_FRAMES * CHANNELS];
+    private final byte[] outputBuffer = new byte[CHUNK_FRAMES * CHANNELS * 2];
+
+    private final SourceDataLine line;
+    private final Thread mixerThread;
+    private volatile boolean running;
+
+    public AudioEngine(int maxVoices) {
+        this.voiceSounds = new Sound[maxVoices];
+        this.voicePositions = new int[maxVoices];
+
+        SourceDataLine opened = null;
+        try {
+            opened = AudioSystem.getSourceDataLine(FORMAT);
+            opened.open(FORMAT, outputBuffer.length * LINE_BUFFER_CHUNKS);
+            opened.start();
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("Audio output unavailable, sounds disabled: " + e.getMessage());
+            opened = null;
+        }
+        this.line = opened;
+
+        this.mixerThread = new Thread(this::runMixer, "AudioMixer");
+        mixerThread.setDaemon(true);
+        if (line != null) {
+            running = true;
+            mixerThread.start();
+        }
+    }
+
+    // Decodes a whole stream and converts it to the engine's rate and channel layout.
+    public static Sound decode(InputStream input) throws IOException, UnsupportedAudioFileException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(input))) {
+            AudioFormat sourceFormat = source.getFormat();
+            AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceFormat.getChannels(), true, false);
+            try (AudioInputStream pcm = AudioSystem.getAudioInputStream(pcmFormat, source)) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = pcm.read(buffer)) > 0) {
+                    bytes.write(buffer, 0, read);
+                }
+                return new Sound(convert(bytes.toByteArray(), pcmFormat.getChannels(), pcmFormat.getSampleRate()));
+            }
+        }
+    }
+
+    // Linear resampling to SAMPLE_RATE; mono is duplicated to both channels, extra channels are dropped.
+    private static short[] convert(byte[] pcm, int sourceChannels, float sourceRate) {
+        int sourceFrames = pcm.length / (2 * sourceChannels);
+        if (sourceFrames == 0) {
+            return new short[0];
+        }
+        double step = sourceRate / SAMPLE_RATE;
+        int frames = (int) ((sourceFrames - 1) / step) + 1;
+        short[] samples = new short[frames * CHANNELS];
+
+        for (int frame = 0; frame < frames; frame++) {
+            double position = frame * step;
+            int index = (int) position;
+            double fraction = position - index;
+            int next = Math.min(index + 1, sourceFrames - 1);
+            for (int channel = 0; channel < CHANNELS; channel++) {
+                int sourceChannel = Math.min(channel, sourceChannels - 1);
+                int a = sample(pcm, index, sourceChannel, sourceChannels);
+                int b = sample(pcm, next, sourceChannel, sourceChannels);
+                samples[frame * CHANNELS + channel] = (short) Math.round(a + (b - a) * fraction);
+            }
+        }
+        return samples;
+    }
+
+    private static int sample(byte[] pcm, int frame, int channel, int channels) {
+        int offset = (frame * channels + channel) * 2;
+        return (short) ((pcm[offset] & 0xFF) | (pcm[offset + 1] << 8));
+    }
+
+    public void play(Sound sound) {
+        if (running && sound != null) {
+            commands.offer(sound);
+        }
+    }
+
+    public boolean isAvailable() {
+        return line != null;
+    }
+
+    public void close() {
+        running = false;
+        if (line != null) {
+            try {
+                mixerThread.join(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            line.close();
+        }
+    }
+
+    private void runMixer() {
+        while (running) {
+            Sound sound;
+            while ((sound = commands.poll()) != null) {
+                startVoice(sound);
+            }
+            mixChunk();
+            // Blocks while the line buffer is full, which paces the loop to real time.
+            line.write(outputBuffer, 0, outputBuffer.length);
+        }
+    }
+
+    // Takes a free voice, or steals the one closest to finishing.
+    private void startVoice(Sound sound) {
+        int chosen = 0;
+        int leastRemaining = Integer.MAX_VALUE;
+        for (int voice = 0; voice < voiceSounds.length; voice++) {
+            if (voiceSounds[voice] == null) {
+                chosen = voice;
+                break;
+            }
+            int remaining = voiceSounds[voice].samples.length - voicePositions[voice];
+            if (remaining < leastRemaining) {
+                leastRemaining = remaining;
+                chosen = voice;
+            }
+        }
+        voiceSounds[chosen] = sound;
+        voicePositions[chosen] = 0;
+    }
+
+    private void mixChunk() {
+        Arrays.fill(mixBuffer, 0);
+        for (int voice = 0; voice < voiceSounds.length; voice++) {
+            Sound sound = voiceSounds[voice];
+            if (sound == null) continue;
+            int position = voicePositions[voice];
+            int count = Math.min(mixBuffer.length, sound.samples.length - position);
+            for (int i = 0; i < count; i++) {
+                mixBuffer[i] += sound.samples[position + i];
+            }
+            position += count;
+            if (position >= sound.samples.length) {
+                voiceSounds[voice] = null;
+            }
+            voicePositions[voice] = position;
+        }
+
+        for (int i = 0; i < mixBuffer.length; i++) {
+            int value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixBuffer[i]));
+            outputBuffer[i * 2] = (byte) value;
+            outputBuffer[i * 2 + 1] = (byte) (value >> 8);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+// Microbenchmarks for the game's hot paths. Run with -Djava.awt.headless=true for the render case.
+public class Benchmarks {
+    private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+    private static final int DEFAULT_MEASURE_ITERATIONS = 5;
+    private static final long DEFAULT_ITERATION_MILLIS = 1000;
+
+    private static volatile long sink;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<LongSupplier> operations = new ArrayList<>();
+
+    public static void main(String[] args) {
+        String filter = "";
+        int warmup = DEFAULT_WARMUP_ITERATIONS;
+        int iterations = DEFAULT_MEASURE_ITERATIONS;
+        long iterationMillis = DEFAULT_ITERATION_MILLIS;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--filter" -> filter = args[++i];
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--iterations" -> iterations = Integer.parseInt(args[++i]);
+                case "--time" -> iterationMillis = Long.parseLong(args[++i]);
+                default -> {
+                    System.err.println("Usage: Benchmarks [--filter text] [--warmup N] [--iterations N] [--time ms]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        Benchmarks benchmarks = new Benchmarks();
+        benchmarks.register();
+
+        System.out.printf("%-36s %14s %12s%n", "benchmark", "ns/op", "+/-");
+        for (int i = 0; i < benchmarks.names.size(); i++) {
+            String name = benchmarks.names.get(i);
+            if (name.contains(filter)) {
+                measure(name, benchmarks.operations.get(i), warmup, iterations, iterationMillis);
+            }
+        }
+    }
+
+    private void add(String name, LongSupplier operation) {
+        names.add(name);
+        operations.add(operation);
+    }
+
+    private void register() {
+        for (int size : new int[]{15, 20, 25, 51}) {
+            add("MazeGenerator.getMaze " + size + "x" + size,
+                    () -> MazeGenerator.getMaze(size, size).remainingPellets());
+        }
+
+        for (Ghost.GhostType type : Ghost.GhostType.values()) {
+            GameSimulation simulation = newSimulation();
+            Ghost ghost = findGhost(simulation, type);
+            if (ghost != null) {
+                add("Ghost.move " + type, () -> {
+                    simulation.moveGhost(ghost);
+                    return ghost.getX() + ghost.getY();
+                });
+            }
+        }
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            GameSimulation swarm = new GameSimulation(MazeGenerator.getMaze(51, 51, new Random(42)), 42);
+            swarm.addGhosts(400);
+            swarm.setParallelGhostThreshold(parallel ? 1 : Integer.MAX_VALUE);
+            add("moveGhosts 400 " + (parallel ? "parallel" : "sequential"), () -> {
+                swarm.moveGhosts();
+                return swarm.getGhosts().get(0).getX();
+            });
+        }
+
+        GameSimulation swarmSimulation = new GameSimulation(new Levels(201, 201, 42, 1, null), 42, 5000);
+        GhostSwarm ghostSwarm = swarmSimulation.getSwarm();
+        add("moveGhosts swarm 5000 201x201", () -> {
+            swarmSimulation.moveGhosts();
+            return ghostSwarm.findCollision(swarmSimulation.getPacman().getX(), swarmSimulation.getPacman().getY(), 0);
+        });
+
+        GameSimulation pacmanSimulation = newSimulation();
+        Pacman pacman = pacmanSimulation.getPacman();
+        Direction[] directions = Direction.values();
+        long[] counter = new long[1];
+        add("Pacman.move", () -> {
+            pacman.setDirection(directions[(int) (counter[0]++ >>> 4) & 3]);
+            pacman.move();
+            return pacman.getX() + pacman.getY();
+        });
+        add("Pacman.canMove", () -> {
+            int offset = (int) (counter[0]++ & 7);
+            return pacman.canMove(pacman.getX() + offset, pacman.getY()) ? 1 : 0;
+        });
+
+        Maze largeMaze = MazeGenerator.getMaze(51, 51);
+        Pathfinder pathfinder = new Pathfinder(largeMaze);
+        int[] openTiles = openTiles(largeMaze);
+        add("Pathfinder.directionTowards 51x51", () -> {
+            int from = openTiles[(int) (counter[0]++ % openTiles.length)];
+            int to = openTiles[(int) ((counter[0] >>> 8) % 8)];
+            Direction dir = pathfinder.directionTowards(from % 51, from / 51, to % 51, to / 51);
+            return dir == null ? 0 : dir.ordinal();
+        });
+
+        RankedScores rankedScores = new RankedScores();
+        Random scoreRandom = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            rankedScores.insert(new HighScore.Score("warmup", scoreRandom.nextInt(100_000)));
+        }
+        add("RankedScores.insert 100k", () -> {
+            int rank = rankedScores.insert(new HighScore.Score("bench", scoreRandom.nextInt(100_000)));
+            rankedScores.removeLowest();
+            return rank;
+        });
+
+        GameSimulation collisionSimulation = newSimulation();
+        add("GameSimulation.checkCollisions", () -> {
+            collisionSimulation.checkCollisions();
+            return collisionSimulation.getScore();
+        });
+
+        // A whole headless tick with the bot playing, as HeadlessRunner runs it. A finished game is
+        // replaced by a new one on the next maze, so level building is part of the cost.
+        for (int size : new int[]{25, 51}) {
+            Random botRandom = new Random(42);
+            long[] gameSeed = {0};
+            GameSimulation[] game = new GameSimulation[1];
+            add("GameSimulation.tick " + size + "x" + size + " bot", () -> {
+                if (game[0] == null || game[0].isFinished()) {
+                    gameSeed[0]++;
+                    game[0] = new GameSimulation(new Levels(size, size, gameSeed[0], Replay.DEFAULT_LEVELS, null),
+                            gameSeed[0]);
+                    game[0].setInputSource(new BotInput(botRandom));
+                }
+                game[0].tick();
+                return game[0].getTickCount();
+            });
+        }
+
+        GameSimulation renderSimulation = newSimulation();
+        RenderBuffer renderBuffer = renderSimulation.enableRendering();
+        BoardRenderer renderer = new BoardRenderer(GameSimulation.CELL_SIZE);
+        Maze maze = renderSimulation.getMaze();
+        BufferedImage image = new BufferedImage(maze.getWidth() * GameSimulation.CELL_SIZE,
+                maze.getHeight() * GameSimulation.CELL_SIZE, BufferedImage.TYPE_INT_RGB);
+        add("BoardRenderer.draw 25x25", () -> {
+            Graphics2D g = image.createGraphics();
+            renderer.draw(g, renderBuffer.acquire(), 0.5);
+            g.dispose();
+            return image.getRGB(0, 0);
+        });
+    }
+
+    private static GameSimulation newSimulation() {
+        return new GameSimulation(MazeGenerator.getMaze(25, 25));
+    }
+
+    private static int[] openTiles(Maze maze) {
+        int[] tiles = new int[maze.getWidth() * maze.getHeight()];
+        int count = 0;
+        for (int y = 0; y < maze.getHeight(); y++) {
+            for (int x = 0; x < maze.getWidth(); x++) {
+                if (!maze.isWall(x, y)) {
+                    tiles[count++] = y * maze.getWidth() + x;
+                }
+            }
+        }
+        return Arrays.copyOf(tiles, count);
+    }
+
+    private static Ghost findGhost(GameSimulation simulation, Ghost.GhostType type) {
+        for (Ghost ghost : simulation.getGhosts()) {
+            if (ghost.getType() == type) {
+                return ghost;
+            }
+        }
+        return null;
+    }
+
+    private static void measure(String name, LongSupplier operation, int warmup, int iterations, long iterationMillis) {
+        for (int i = 0; i < warmup; i++) {
+            runIteration(operation, iterationMillis);
+        }
+
+        double[] results = new double[iterations];
+        double total = 0;
+        for (int i = 0; i < iterations; i++) {
+            results[i] = runIteration(operation, iterationMillis);
+            total += results[i];
+        }
+        double mean = total / iterations;
+        double variance = 0;
+        for (double result : results) {
+            variance += (result - mean) * (result - mean);
+        }
+        double error = iterations > 1 ? Math.sqrt(variance / (iterations - 1)) : 0;
+
+        System.out.printf(Locale.ROOT, "%-36s %14.1f %12.1f%n", name, mean, error);
+    }
+
+    // Runs the operation in batches until the time budget is spent and returns nanoseconds per call.
+    private static double runIteration(LongSupplier operation, long iterationMillis) {
+        long budget = iterationMillis * 1_000_000L;
+        long operations = 0;
+        long accumulated = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        int batch = 1;
+        do {
+            for (int i = 0; i < batch; i++) {
+                accumulated += operation.getAsLong();
+            }
+            operations += batch;
+            if (batch < 1 << 16) {
+                batch <<= 1;
+            }
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < budget);
+        sink = accumulated;
+        return (double) elapsed / operations;
+    }
+}
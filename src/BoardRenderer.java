@@ -0,0 +1,79 @@
+import java.awt.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Draws render frames, never live game state. Holds the maze layers of the levels being shown,
+// which are rendered ahead on the thread that builds each level.
+public class BoardRenderer {
+    private final int cellSize;
+    private final int layerCellSize;
+    private final SpriteAtlas sprites;
+    private final Map<Level, MazeLayers> layers = new ConcurrentHashMap<>();
+    private Level drawnLevel;
+
+    public BoardRenderer(int cellSize) {
+        this(cellSize, cellSize);
+    }
+
+    // layerCellSize is the displayed size of a cell, at which the maze layers are rendered.
+    public BoardRenderer(int cellSize, int layerCellSize) {
+        this.cellSize = cellSize;
+        this.layerCellSize = layerCellSize;
+        this.sprites = SpriteAtlas.forCellSize(cellSize);
+    }
+
+    // Called for each level as it is built, before it is played.
+    public void prepareLevel(Level level) {
+        MazeLayers levelLayers = new MazeLayers(level.getMaze(), cellSize, layerCellSize);
+        levelLayers.prepare();
+        layers.put(level, levelLayers);
+    }
+
+    public void draw(Graphics g, RenderFrame frame, double alpha) {
+        ThemeManager.Theme currentTheme = ThemeManager.getCurrentTheme();
+
+        layersOf(frame.getLevel()).draw(g, frame.getEatenCount());
+
+        for (int i = 0; i < frame.getPowerUpCount(); i++) {
+            sprites.drawPowerUp(g, frame.getPowerUpX(i), frame.getPowerUpY(i), frame.getPowerUpType(i));
+        }
+
+        for (int i = 0; i < frame.getGhostCount(); i++) {
+            sprites.drawGhost(g, interpolate(frame.getGhostPrevX(i), frame.getGhostX(i), alpha),
+                    interpolate(frame.getGhostPrevY(i), frame.getGhostY(i), alpha),
+                    frame.getGhostType(i), frame.isGhostVulnerable(i), frame.getGhostDirection(i));
+        }
+
+        sprites.drawPacman(g, interpolate(frame.getPacmanPrevX(), frame.getPacmanX(), alpha),
+                interpolate(frame.getPacmanPrevY(), frame.getPacmanY(), alpha),
+                frame.getPacmanDirection(), frame.getPacmanAnimationFrame());
+
+        int pelletAnimationFrame = frame.getPelletAnimationFrame();
+        int eatenX = frame.getLastEatenX();
+        int eatenY = frame.getLastEatenY();
+        if (eatenX >= 0 && pelletAnimationFrame >= 0) {
+            int x = eatenX * cellSize;
+            int y = eatenY * cellSize;
+
+            g.setColor(currentTheme.pelletColor);
+            int size = (GameSimulation.PELLET_ANIMATION_FRAMES - pelletAnimationFrame) * 2;
+            g.fillOval(x + cellSize/2 - size/2,
+                      y + cellSize/2 - size/2,
+                      size, size);
+        }
+    }
+
+    private MazeLayers layersOf(Level level) {
+        if (level != drawnLevel) {
+            // Earlier levels are never shown again.
+            layers.keySet().removeIf(other -> other.getNumber() < level.getNumber());
+            drawnLevel = level;
+        }
+        return layers.computeIfAbsent(level,
+                unprepared -> new MazeLayers(unprepared.getMaze(), cellSize, layerCellSize));
+    }
+
+    private static int interpolate(int from, int to, double alpha) {
+        return (int) Math.round(from + (to - from) * alpha);
+    }
+}
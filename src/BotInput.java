@@ -0,0 +1,48 @@
+import java.util.Random;
+
+public class BotInput implements InputSource {
+    private static final int CELL_SIZE = GameSimulation.CELL_SIZE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final Random random;
+    private final Direction[] candidates = new Direction[DIRECTIONS.length];
+
+    public BotInput(Random random) {
+        this.random = random;
+    }
+
+    // Steers only when Pacman is aligned to a tile: prefers a neighbouring pellet, avoids reversing.
+    @Override
+    public Direction nextDirection(GameSimulation simulation) {
+        Pacman pacman = simulation.getPacman();
+        if (pacman.getX() % CELL_SIZE != 0 || pacman.getY() % CELL_SIZE != 0) {
+            return null;
+        }
+
+        Maze maze = simulation.getMaze();
+        int tileX = pacman.getX() / CELL_SIZE;
+        int tileY = pacman.getY() / CELL_SIZE;
+        Direction current = pacman.getCurrentDirection();
+
+        int count = 0;
+        for (Direction dir : DIRECTIONS) {
+            int x = tileX + dir.dx;
+            int y = tileY + dir.dy;
+            if (maze.isPellet(x, y) || maze.isPowerPellet(x, y)) {
+                candidates[count++] = dir;
+            }
+        }
+        if (count == 0) {
+            for (Direction dir : DIRECTIONS) {
+                boolean reverse = dir.dx == -current.dx && dir.dy == -current.dy;
+                if (!reverse && !maze.isWall(tileX + dir.dx, tileY + dir.dy)) {
+                    candidates[count++] = dir;
+                }
+            }
+        }
+        if (count == 0) {
+            return DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+        }
+        return candidates[random.nextInt(count)];
+    }
+}
@@ -0,0 +1,66 @@
+public class FrameStats {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private long frames = 0;
+    private long lastFrameStart = 0;
+    private long totalIntervalNanos = 0;
+    private long minIntervalNanos = Long.MAX_VALUE;
+    private long maxIntervalNanos = 0;
+    private long totalRenderNanos = 0;
+    private long maxRenderNanos = 0;
+
+    private long windowStart = 0;
+    private int windowFrames = 0;
+    private volatile int currentFps = 0;
+
+    public synchronized void record(long frameStart, long renderNanos) {
+        if (lastFrameStart != 0) {
+            long interval = frameStart - lastFrameStart;
+            totalIntervalNanos += interval;
+            minIntervalNanos = Math.min(minIntervalNanos, interval);
+            maxIntervalNanos = Math.max(maxIntervalNanos, interval);
+        }
+        lastFrameStart = frameStart;
+        totalRenderNanos += renderNanos;
+        maxRenderNanos = Math.max(maxRenderNanos, renderNanos);
+        frames++;
+
+        if (windowStart == 0) {
+            windowStart = frameStart;
+        }
+        windowFrames++;
+        if (frameStart - windowStart >= NANOS_PER_SECOND) {
+            currentFps = (int) (windowFrames * NANOS_PER_SECOND / (frameStart - windowStart));
+            windowStart = frameStart;
+            windowFrames = 0;
+        }
+    }
+
+    public int getFps() {
+        return currentFps;
+    }
+
+    public synchronized long getFrames() {
+        return frames;
+    }
+
+    public synchronized double getAverageFrameMillis() {
+        return frames > 1 ? totalIntervalNanos / 1e6 / (frames - 1) : 0;
+    }
+
+    public synchronized double getMaxFrameMillis() {
+        return maxIntervalNanos / 1e6;
+    }
+
+    public synchronized double getAverageRenderMillis() {
+        return frames > 0 ? totalRenderNanos / 1e6 / frames : 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("frames=%d fps=%d frame(avg=%.2fms min=%.2fms max=%.2fms) render(avg=%.2fms max=%.2fms)",
+                frames, currentFps, getAverageFrameMillis(),
+                frames > 1 ? minIntervalNanos / 1e6 : 0, getMaxFrameMillis(),
+                getAverageRenderMillis(), maxRenderNanos / 1e6);
+    }
+}
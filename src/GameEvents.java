@@ -0,0 +1,111 @@
+import jdk.jfr.*;
+
+// Flight Recorder events emitted by the game. Names and fields are stable so recordings can be
+// compared across builds; they cost nothing unless a recording enables them.
+public final class GameEvents {
+    // Hot paths check these before allocating an event, so nothing is allocated per tick or frame
+    // unless a recording has the event enabled.
+    public static final EventType TICK = EventType.getEventType(Tick.class);
+    public static final EventType TICK_PHASE = EventType.getEventType(TickPhase.class);
+    public static final EventType PAINT = EventType.getEventType(Paint.class);
+    public static final EventType SOUND_TRIGGER = EventType.getEventType(SoundTrigger.class);
+
+    private GameEvents() {
+    }
+
+    @Name("pacman.Tick")
+    @Label("Game Tick")
+    @Category("Pacman")
+    @StackTrace(false)
+    public static final class Tick extends Event {
+        @Label("Tick")
+        public long tick;
+
+        @Label("Ghosts")
+        public int ghosts;
+
+        @Label("Pellets Left")
+        public int pelletsLeft;
+    }
+
+    @Name("pacman.TickPhase")
+    @Label("Tick Phase")
+    @Category("Pacman")
+    @StackTrace(false)
+    public static final class TickPhase extends Event {
+        @Label("Phase")
+        public String phase;
+    }
+
+    @Name("pacman.Paint")
+    @Label("Paint")
+    @Category("Pacman")
+    @StackTrace(false)
+    public static final class Paint extends Event {
+        @Label("Width")
+        public int width;
+
+        @Label("Height")
+        public int height;
+
+        @Label("Scale")
+        public double scale;
+
+        @Label("Active Rendering")
+        public boolean activeRendering;
+    }
+
+    @Name("pacman.MazeGeneration")
+    @Label("Maze Generation")
+    @Category("Pacman")
+    public static final class MazeGeneration extends Event {
+        @Label("Width")
+        public int width;
+
+        @Label("Height")
+        public int height;
+
+        @Label("Pellets")
+        public int pellets;
+    }
+
+    @Name("pacman.HighScoreLoad")
+    @Label("High Score Load")
+    @Category({"Pacman", "I/O"})
+    @StackTrace(false)
+    public static final class HighScoreLoad extends Event {
+        @Label("Path")
+        public String path;
+
+        @Label("Records")
+        public int records;
+
+        @Label("Migrated")
+        public boolean migrated;
+    }
+
+    @Name("pacman.HighScoreWrite")
+    @Label("High Score Write")
+    @Category({"Pacman", "I/O"})
+    @StackTrace(false)
+    public static final class HighScoreWrite extends Event {
+        @Label("Records")
+        public int records;
+
+        @Label("Compacted")
+        public boolean compacted;
+    }
+
+    @Name("pacman.SoundTrigger")
+    @Label("Sound Trigger")
+    @Category({"Pacman", "Audio"})
+    @StackTrace(false)
+    public static final class SoundTrigger extends Event {
+        @Label("Sound")
+        public String sound;
+
+        @Label("Played")
+        @Description("False when the sound or the audio output had not finished loading")
+        public boolean played;
+    }
+}
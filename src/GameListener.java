@@ -0,0 +1,15 @@
+public interface GameListener {
+    default void onScoreChanged(int score) {}
+
+    default void onPacmanDeath(int livesLeft) {}
+
+    default void onPelletEaten(int x, int y, int kind, int pelletsLeft) {}
+
+    default void onGhostEaten() {}
+
+    default void onPowerUpCollected(PowerUp.PowerUpType type) {}
+
+    default void onLevelStarted(int level) {}
+
+    default void onGameOver(boolean won) {}
+}
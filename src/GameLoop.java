@@ -0,0 +1,176 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.DoubleConsumer;
+
+public class GameLoop implements Runnable {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private static final long SPIN_THRESHOLD_NANOS = 1_000_000L;
+
+    private final long tickNanos;
+    private final long frameNanos;
+    private final FrameStats frameStats = new FrameStats();
+    private final Runnable update;
+    private final DoubleConsumer render;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Consumer<Throwable> errorHandler = error -> { };
+    private Thread thread;
+
+    private volatile long tickCount = 0;
+    private volatile long droppedTicks = 0;
+    private volatile long lastTickNanos = 0;
+    private volatile long maxTickNanos = 0;
+
+    public GameLoop(int ticksPerSecond, Runnable update, DoubleConsumer render) {
+        this(ticksPerSecond, ticksPerSecond, update, render);
+    }
+
+    public GameLoop(int ticksPerSecond, int targetFps, Runnable update, DoubleConsumer render) {
+        this.tickNanos = NANOS_PER_SECOND / ticksPerSecond;
+        this.frameNanos = NANOS_PER_SECOND / Math.max(1, targetFps);
+        this.update = update;
+        this.render = render;
+    }
+
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            thread = new Thread(this, "game-loop");
+            thread.start();
+        }
+    }
+
+    public void stop() {
+        running.set(false);
+        if (thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+        }
+    }
+
+    // Called on the loop thread when a tick or a render throws; the loop has stopped by then.
+    public void setErrorHandler(Consumer<Throwable> errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    // Stops the loop and waits for the tick or frame in progress to finish. Returns false if the
+    // thread is still running when the timeout expires.
+    public boolean stopAndWait(long timeoutMillis) {
+        stop();
+        if (thread == null || thread == Thread.currentThread()) {
+            return true;
+        }
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    @Override
+    public void run() {
+        try {
+            loop();
+        } catch (RuntimeException | Error e) {
+            running.set(false);
+            System.err.println("Error in game loop: " + e);
+            e.printStackTrace();
+            errorHandler.accept(e);
+        }
+    }
+
+    private void loop() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        long nextFrame = previous;
+
+        while (running.get()) {
+            long frameStart = System.nanoTime();
+            accumulator += frameStart - previous;
+            previous = frameStart;
+
+            int ticks = 0;
+            while (accumulator >= tickNanos && ticks < MAX_CATCH_UP_TICKS && running.get()) {
+                long tickStart = System.nanoTime();
+                update.run();
+                recordTick(System.nanoTime() - tickStart);
+                accumulator -= tickNanos;
+                ticks++;
+            }
+
+            // Too far behind to catch up: drop the backlog instead of spiralling.
+            if (accumulator >= tickNanos) {
+                droppedTicks += accumulator / tickNanos;
+                accumulator %= tickNanos;
+            }
+
+            long renderStart = System.nanoTime();
+            render.accept((double) accumulator / tickNanos);
+            frameStats.record(renderStart, System.nanoTime() - renderStart);
+
+            nextFrame += frameNanos;
+            long now = System.nanoTime();
+            if (now - nextFrame > frameNanos) {
+                // Missed more than a whole frame: resynchronise rather than bursting.
+                nextFrame = now;
+            }
+            if (!waitUntil(nextFrame)) {
+                break;
+            }
+        }
+        running.set(false);
+    }
+
+    // Sleeps most of the way and spins the last millisecond for tighter frame pacing.
+    private boolean waitUntil(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining > SPIN_THRESHOLD_NANOS) {
+            long sleepNanos = remaining - SPIN_THRESHOLD_NANOS;
+            try {
+                Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        while (System.nanoTime() < deadline && running.get()) {
+            Thread.onSpinWait();
+        }
+        return true;
+    }
+
+    private void recordTick(long nanos) {
+        lastTickNanos = nanos;
+        if (nanos > maxTickNanos) {
+            maxTickNanos = nanos;
+        }
+        tickCount++;
+    }
+
+    public FrameStats getFrameStats() {
+        return frameStats;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public long getMaxTickNanos() {
+        return maxTickNanos;
+    }
+}
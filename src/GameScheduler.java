@@ -0,0 +1,122 @@
+public class GameScheduler {
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final int ticksPerSecond;
+    private final Task[] wheel = new Task[WHEEL_SIZE];
+    private long currentTick = 0;
+    private volatile boolean paused = false;
+
+    public GameScheduler(int ticksPerSecond) {
+        this.ticksPerSecond = ticksPerSecond;
+    }
+
+    public int millisToTicks(long millis) {
+        return (int) Math.max(1, (millis * ticksPerSecond + 999) / 1000);
+    }
+
+    public Task schedule(int delayTicks, Runnable action) {
+        return scheduleRepeating(delayTicks, 0, action);
+    }
+
+    public Task scheduleRepeating(int delayTicks, int periodTicks, Runnable action) {
+        Task task = new Task(action, periodTicks);
+        insert(task, currentTick + Math.max(1, delayTicks));
+        return task;
+    }
+
+    // Called once per simulation tick from the game loop thread only.
+    public void tick() {
+        if (paused) return;
+        currentTick++;
+
+        int slot = (int) (currentTick & WHEEL_MASK);
+        Task due = null;
+        Task previous = null;
+        Task task = wheel[slot];
+        while (task != null) {
+            Task next = task.next;
+            if (task.cancelled || task.deadline <= currentTick) {
+                if (previous == null) {
+                    wheel[slot] = next;
+                } else {
+                    previous.next = next;
+                }
+                if (!task.cancelled) {
+                    task.next = due;
+                    due = task;
+                } else {
+                    task.next = null;
+                }
+            } else {
+                previous = task;
+            }
+            task = next;
+        }
+
+        while (due != null) {
+            Task next = due.next;
+            due.next = null;
+            due.action.run();
+            if (due.period > 0 && !due.cancelled) {
+                insert(due, currentTick + due.period);
+            }
+            due = next;
+        }
+    }
+
+    private void insert(Task task, long deadline) {
+        task.deadline = deadline;
+        int slot = (int) (deadline & WHEEL_MASK);
+        task.next = wheel[slot];
+        wheel[slot] = task;
+    }
+
+    public void cancelAll() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            Task task = wheel[i];
+            while (task != null) {
+                task.cancelled = true;
+                task = task.next;
+            }
+            wheel[i] = null;
+        }
+    }
+
+    public void pause() {
+        paused = true;
+    }
+
+    public void resume() {
+        paused = false;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public static class Task {
+        private final Runnable action;
+        private final int period;
+        private long deadline;
+        private Task next;
+        private volatile boolean cancelled = false;
+
+        private Task(Runnable action, int period) {
+            this.action = action;
+            this.period = period;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
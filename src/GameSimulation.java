@@ -0,0 +1,666 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class GameSimulation {
+    public static final int CELL_SIZE = 30;
+    public static final int TICKS_PER_SECOND = 60;
+    public static final int PELLET_ANIMATION_FRAMES = 5;
+    private static final int GHOST_COUNT = 4;
+    private static final int START_LIVES = 3;
+    private static final int PARALLEL_GHOST_THRESHOLD = Integer.getInteger("pacman.parallelGhosts", 64);
+    private static final int GHOSTS_PER_TASK = 16;
+
+    private static final int PELLET_POINTS = 10;
+    private static final int POWER_PELLET_POINTS = 50;
+    private static final int GHOST_POINTS = 200;
+
+    private static final long POWER_MODE_MILLIS = 10000;
+    private static final long POWER_UP_SPAWN_MILLIS = 5000;
+    private static final double POWER_UP_SPAWN_CHANCE = 0.25;
+    private static final int POWER_UP_PLACEMENT_ATTEMPTS = 100;
+
+    private final Levels levels;
+    private Level level;
+    private Maze maze;
+    private OccupancyGrid occupancy;
+    private Pathfinder pathfinder;
+    private final GameScheduler scheduler;
+    private final long seed;
+    private final Random random;
+    private final Pacman pacman;
+    private final List<Ghost> ghosts = new ArrayList<>();
+    private final int swarmSize;
+    private GhostSwarm swarm;
+    private final List<PowerUp> powerUps = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private volatile GameSnapshot snapshot;
+    private RenderBuffer renderBuffer;
+
+    private GameListener listener = new GameListener() {};
+    private InputSource inputSource;
+    private PerfMonitor perf = new PerfMonitor();
+    private int parallelGhostThreshold = PARALLEL_GHOST_THRESHOLD;
+
+    private boolean isPowerModeActive;
+    private int score = 0;
+    private int lives = START_LIVES;
+    private boolean finished = false;
+    private boolean won = false;
+    private boolean levelCleared = false;
+    private long tickCount = 0;
+
+    private GameScheduler.Task powerModeExpiry;
+    private GameScheduler.Task speedBoostExpiry;
+    private GameScheduler.Task freezeExpiry;
+    private GameScheduler.Task pelletAnimation;
+
+    private int lastEatenX = -1;
+    private int lastEatenY = -1;
+    private int pelletAnimationFrame = -1;
+
+    public GameSimulation(Maze maze) {
+        this(maze, new Random().nextLong());
+    }
+
+    // A single-level game on the given maze.
+    public GameSimulation(Maze maze, long seed) {
+        this(null, new Level(1, maze), seed, 0);
+    }
+
+    public GameSimulation(Levels levels, long seed) {
+        this(levels, seed, 0);
+    }
+
+    // With swarmSize above zero, a GhostSwarm of that many ghosts replaces the usual four.
+    public GameSimulation(Levels levels, long seed, int swarmSize) {
+        this(levels, levels.get(1), seed, swarmSize);
+    }
+
+    // Everything random in the game (power-ups, ghost decisions) derives from the seed.
+    private GameSimulation(Levels levels, Level first, long seed, int swarmSize) {
+        this.levels = levels;
+        this.swarmSize = swarmSize;
+        this.level = first;
+        this.maze = first.getMaze();
+        this.occupancy = first.getOccupancy();
+        this.pathfinder = first.getPathfinder();
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.scheduler = new GameScheduler(TICKS_PER_SECOND);
+        this.pacman = new Pacman(maze, maze.getPacmanStartX(), maze.getPacmanStartY());
+        createGhosts();
+        schedulePowerUpSpawns();
+        if (levels != null) {
+            levels.buildAhead(first.getNumber());
+        }
+    }
+
+    private void schedulePowerUpSpawns() {
+        int spawnPeriod = scheduler.millisToTicks(POWER_UP_SPAWN_MILLIS);
+        scheduler.scheduleRepeating(spawnPeriod, spawnPeriod, () -> {
+            if (random.nextDouble() < POWER_UP_SPAWN_CHANCE) {
+                generatePowerUp();
+            }
+        });
+    }
+
+    // Stops building levels ahead, for a game that is over or abandoned.
+    public void close() {
+        if (levels != null) {
+            levels.close();
+        }
+    }
+
+    public void setListener(GameListener listener) {
+        this.listener = listener;
+    }
+
+    public void setInputSource(InputSource inputSource) {
+        this.inputSource = inputSource;
+    }
+
+    public void setPerfMonitor(PerfMonitor perf) {
+        this.perf = perf;
+    }
+
+    public PerfMonitor getPerfMonitor() {
+        return perf;
+    }
+
+    // Other threads never touch the simulation directly; they submit commands that run at the
+    // start of the next tick, on the simulation thread.
+    public void submit(Runnable command) {
+        commands.add(command);
+    }
+
+    // Null until rendering is enabled.
+    public GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // Headless games skip snapshots and render frames entirely, so a tick allocates nothing for
+    // them; call before the first tick to get them.
+    public RenderBuffer enableRendering() {
+        if (renderBuffer == null) {
+            renderBuffer = new RenderBuffer();
+            publishSnapshot();
+        }
+        return renderBuffer;
+    }
+
+    public void tick() {
+        boolean ranCommands = runCommands();
+        if (finished || scheduler.isPaused()) {
+            if (ranCommands) {
+                publishSnapshot();
+            }
+            return;
+        }
+        GameEvents.Tick event = GameEvents.TICK.isEnabled() ? new GameEvents.Tick() : null;
+        if (event != null) {
+            event.begin();
+        }
+        perf.start(PerfMonitor.Phase.TICK);
+        tickCount++;
+        perf.start(PerfMonitor.Phase.INPUT);
+        if (inputSource != null) {
+            Direction direction = inputSource.nextDirection(this);
+            if (direction != null) {
+                pacman.setDirection(direction);
+            }
+        }
+        perf.stop(PerfMonitor.Phase.INPUT);
+        perf.start(PerfMonitor.Phase.SCHEDULER);
+        scheduler.tick();
+        perf.stop(PerfMonitor.Phase.SCHEDULER);
+        perf.start(PerfMonitor.Phase.PACMAN);
+        pacman.move();
+        perf.stop(PerfMonitor.Phase.PACMAN);
+        perf.start(PerfMonitor.Phase.GHOSTS);
+        moveGhosts();
+        perf.stop(PerfMonitor.Phase.GHOSTS);
+        perf.start(PerfMonitor.Phase.COLLISIONS);
+        checkCollisions();
+        perf.stop(PerfMonitor.Phase.COLLISIONS);
+        if (levelCleared) {
+            levelCleared = false;
+            startNextLevel();
+        }
+        perf.stop(PerfMonitor.Phase.TICK);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.tick = tickCount;
+                event.ghosts = ghosts.size() + (swarm != null ? swarm.size() : 0);
+                event.pelletsLeft = maze.remainingPellets();
+                event.commit();
+            }
+        }
+        publishSnapshot();
+    }
+
+    private boolean runCommands() {
+        Runnable command = commands.poll();
+        if (command == null) return false;
+        do {
+            command.run();
+        } while ((command = commands.poll()) != null);
+        return true;
+    }
+
+    private void publishSnapshot() {
+        if (renderBuffer == null) return;
+        snapshot = new GameSnapshot(tickCount, getElapsedMillis(), level.getNumber(), score, lives, maze.remainingPellets(),
+                isPowerModeActive, scheduler.isPaused(), finished, won);
+        renderBuffer.publish(this);
+    }
+
+    private void initializeGhosts() {
+        int count = Math.min(GHOST_COUNT, maze.getGhostStartCount());
+        for (int ghostIndex = 0; ghostIndex < count; ghostIndex++) {
+            Ghost ghost = new Ghost(this, maze.getGhostStartX(ghostIndex), maze.getGhostStartY(ghostIndex),
+                    Ghost.GhostType.values()[ghostIndex], new Random(random.nextLong()));
+            ghosts.add(ghost);
+            occupancy.add(ghost.getX(), ghost.getY());
+        }
+    }
+
+    // Two phases: every ghost decides against the grid as the last tick left it (in parallel for
+    // large counts), then the moves are committed in list order. Ghosts never see each other
+    // half-moved, so the outcome is the same however the decisions were scheduled.
+    void moveGhosts() {
+        if (ghosts.size() >= parallelGhostThreshold) {
+            warmPacmanField();
+            ForkJoinPool.commonPool().invoke(new DecideTask(0, ghosts.size()));
+        } else {
+            for (int i = 0; i < ghosts.size(); i++) {
+                ghosts.get(i).decide();
+            }
+        }
+        for (int i = 0; i < ghosts.size(); i++) {
+            commitGhost(ghosts.get(i));
+        }
+        if (swarm != null) {
+            int tileX = (pacman.getX() + CELL_SIZE / 2) / CELL_SIZE;
+            int tileY = (pacman.getY() + CELL_SIZE / 2) / CELL_SIZE;
+            swarm.move(tileX, tileY);
+        }
+    }
+
+    // In swarm mode the swarm takes the place of the four ghosts.
+    private void createGhosts() {
+        if (swarmSize > 0) {
+            swarm = new GhostSwarm(level, swarmSize, random.nextLong());
+        } else {
+            initializeGhosts();
+        }
+    }
+
+    void moveGhost(Ghost ghost) {
+        ghost.decide();
+        commitGhost(ghost);
+    }
+
+    private void commitGhost(Ghost ghost) {
+        occupancy.remove(ghost.getX(), ghost.getY());
+        ghost.commit();
+        occupancy.add(ghost.getX(), ghost.getY());
+    }
+
+    // Most ghosts path towards Pacman's tile; computing that field once up front keeps the
+    // parallel deciders from all computing it at the same time.
+    private void warmPacmanField() {
+        int tileX = (pacman.getX() + CELL_SIZE / 2) / CELL_SIZE;
+        int tileY = (pacman.getY() + CELL_SIZE / 2) / CELL_SIZE;
+        pathfinder.distance(tileX, tileY, tileX, tileY);
+    }
+
+    private class DecideTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+
+        DecideTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GHOSTS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    ghosts.get(i).decide();
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DecideTask(from, middle), new DecideTask(middle, to));
+            }
+        }
+    }
+
+    // Extra ghosts for swarm runs and benchmarks, placed on random open cells.
+    void addGhosts(int count) {
+        Ghost.GhostType[] types = Ghost.GhostType.values();
+        for (int i = 0; i < count; i++) {
+            int x, y;
+            do {
+                x = random.nextInt(maze.getWidth());
+                y = random.nextInt(maze.getHeight());
+            } while (maze.isWall(x, y));
+            Ghost ghost = new Ghost(this, x, y, types[i % types.length], new Random(random.nextLong()));
+            ghosts.add(ghost);
+            occupancy.add(ghost.getX(), ghost.getY());
+        }
+    }
+
+    void setParallelGhostThreshold(int threshold) {
+        this.parallelGhostThreshold = threshold;
+    }
+
+    void checkCollisions() {
+        int pacmanTileX = pacman.getX() / CELL_SIZE;
+        int pacmanTileY = pacman.getY() / CELL_SIZE;
+
+        switch (maze.popPellet(pacmanTileX, pacmanTileY)) {
+            case Maze.PELLET:
+                eatPellet(pacmanTileX, pacmanTileY);
+                break;
+            case Maze.POWER_PELLET:
+                eatPowerPellet(pacmanTileX, pacmanTileY);
+                break;
+        }
+
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost ghost = ghosts.get(i);
+            if (finished) return;
+            if (ghost.intersects(pacman)) {
+                if (isPowerModeActive) {
+                    updateScore(GHOST_POINTS);
+                    respawnGhost(ghost);
+                    listener.onGhostEaten();
+                } else {
+                    handlePacmanDeath();
+                }
+            }
+        }
+
+        if (swarm != null) {
+            checkSwarmCollisions();
+        }
+
+        // Indexed loops here and in moveGhosts: no iterator or capturing lambda per tick.
+        for (int i = 0; i < powerUps.size(); i++) {
+            PowerUp powerUp = powerUps.get(i);
+            if (!finished && powerUp.isActive() && powerUp.intersects(pacman)) {
+                powerUp.apply(this);
+                listener.onPowerUpCollected(powerUp.getType());
+                powerUps.remove(i--);
+            }
+        }
+    }
+
+    private void checkSwarmCollisions() {
+        int pacmanX = pacman.getX();
+        int pacmanY = pacman.getY();
+        for (int i = swarm.findCollision(pacmanX, pacmanY, 0); i >= 0; i = swarm.findCollision(pacmanX, pacmanY, i + 1)) {
+            if (finished) return;
+            if (isPowerModeActive) {
+                updateScore(GHOST_POINTS);
+                swarm.respawn(i);
+                listener.onGhostEaten();
+            } else {
+                // Everything respawns after a death, so the rest of the scan is moot.
+                handlePacmanDeath();
+                return;
+            }
+        }
+    }
+
+    private void eatPellet(int x, int y) {
+        updateScore(PELLET_POINTS);
+        listener.onPelletEaten(x, y, Maze.PELLET, maze.remainingPellets());
+
+        startPelletAnimation(x, y, 50);
+
+        checkWinCondition();
+    }
+
+    private void eatPowerPellet(int x, int y) {
+        updateScore(POWER_PELLET_POINTS);
+        activatePowerMode();
+        listener.onPelletEaten(x, y, Maze.POWER_PELLET, maze.remainingPellets());
+
+        startPelletAnimation(x, y, 70);
+
+        checkWinCondition();
+    }
+
+    private void startPelletAnimation(int x, int y, long frameMillis) {
+        if (pelletAnimation != null) {
+            pelletAnimation.cancel();
+        }
+        lastEatenX = x;
+        lastEatenY = y;
+        pelletAnimationFrame = 0;
+
+        int frameTicks = scheduler.millisToTicks(frameMillis);
+        pelletAnimation = scheduler.scheduleRepeating(frameTicks, frameTicks, () -> {
+            pelletAnimationFrame++;
+            if (pelletAnimationFrame >= PELLET_ANIMATION_FRAMES) {
+                pelletAnimationFrame = -1;
+                lastEatenX = -1;
+                lastEatenY = -1;
+                pelletAnimation.cancel();
+            }
+        });
+    }
+
+    private void handlePacmanDeath() {
+        lives--;
+        listener.onPacmanDeath(lives);
+
+        if (lives <= 0) {
+            gameOver(false);
+        } else {
+            respawnPacman();
+            respawnGhosts();
+        }
+    }
+
+    private void gameOver(boolean won) {
+        finished = true;
+        this.won = won;
+        scheduler.cancelAll();
+        listener.onGameOver(won);
+    }
+
+    // The switch to the next level waits for the end of the tick, after collisions are resolved.
+    private void checkWinCondition() {
+        if (maze.remainingPellets() > 0) return;
+        if (levels != null && level.getNumber() < levels.getCount()) {
+            levelCleared = true;
+        } else {
+            gameOver(true);
+        }
+    }
+
+    // The next level was normally built in the background while this one was played.
+    private void startNextLevel() {
+        level = levels.get(level.getNumber() + 1);
+        maze = level.getMaze();
+        occupancy = level.getOccupancy();
+        pathfinder = level.getPathfinder();
+
+        scheduler.cancelAll();
+        schedulePowerUpSpawns();
+        powerModeExpiry = null;
+        speedBoostExpiry = null;
+        freezeExpiry = null;
+        pelletAnimation = null;
+        isPowerModeActive = false;
+        lastEatenX = -1;
+        lastEatenY = -1;
+        pelletAnimationFrame = -1;
+        powerUps.clear();
+
+        pacman.enterMaze(maze, maze.getPacmanStartX(), maze.getPacmanStartY());
+        ghosts.clear();
+        createGhosts();
+        // Nothing refers to the previous level any more.
+        levels.buildAhead(level.getNumber());
+        listener.onLevelStarted(level.getNumber());
+    }
+
+    private void generatePowerUp() {
+        int x, y;
+        int attempts = 0;
+        do {
+            if (attempts++ >= POWER_UP_PLACEMENT_ATTEMPTS) {
+                return;
+            }
+            x = random.nextInt(maze.getWidth());
+            y = random.nextInt(maze.getHeight());
+        } while (!maze.isEmpty(x, y));
+
+        PowerUp powerUp = new PowerUp(x * CELL_SIZE, y * CELL_SIZE,
+                PowerUp.PowerUpType.values()[random.nextInt(PowerUp.PowerUpType.values().length)]);
+        powerUps.add(powerUp);
+    }
+
+    private void respawnGhost(Ghost ghost) {
+        occupancy.remove(ghost.getX(), ghost.getY());
+        ghost.respawn();
+        occupancy.add(ghost.getX(), ghost.getY());
+    }
+
+    private void respawnGhosts() {
+        for (Ghost ghost : ghosts) {
+            respawnGhost(ghost);
+        }
+        if (swarm != null) {
+            swarm.respawnAll();
+        }
+    }
+
+    private void respawnPacman() {
+        pacman.setPosition(maze.getPacmanStartX(), maze.getPacmanStartY());
+    }
+
+    private void updateScore(int points) {
+        score += points;
+        listener.onScoreChanged(score);
+    }
+
+    public void activatePowerMode() {
+        isPowerModeActive = true;
+        for (Ghost ghost : ghosts) {
+            ghost.setVulnerable(true);
+        }
+        if (swarm != null) {
+            swarm.setVulnerable(true);
+        }
+
+        if (powerModeExpiry != null) {
+            powerModeExpiry.cancel();
+        }
+        powerModeExpiry = scheduler.schedule(scheduler.millisToTicks(POWER_MODE_MILLIS), () -> {
+            isPowerModeActive = false;
+            for (Ghost ghost : ghosts) {
+                ghost.setVulnerable(false);
+            }
+            if (swarm != null) {
+                swarm.setVulnerable(false);
+            }
+        });
+    }
+
+    public void activateSpeedBoost(double multiplier, long millis) {
+        pacman.setSpeedMultiplier(multiplier);
+        if (speedBoostExpiry != null) {
+            speedBoostExpiry.cancel();
+        }
+        speedBoostExpiry = scheduler.schedule(scheduler.millisToTicks(millis), pacman::resetSpeed);
+    }
+
+    public void freezeGhosts(long millis) {
+        for (Ghost ghost : ghosts) {
+            ghost.freeze();
+        }
+        if (swarm != null) {
+            swarm.setFrozen(true);
+        }
+        if (freezeExpiry != null) {
+            freezeExpiry.cancel();
+        }
+        freezeExpiry = scheduler.schedule(scheduler.millisToTicks(millis), () -> {
+            for (Ghost ghost : ghosts) {
+                ghost.unfreeze();
+            }
+            if (swarm != null) {
+                swarm.setFrozen(false);
+            }
+        });
+    }
+
+    public void pause() {
+        scheduler.pause();
+    }
+
+    public void resume() {
+        scheduler.resume();
+    }
+
+    public void togglePause() {
+        if (scheduler.isPaused()) {
+            resume();
+        } else {
+            pause();
+        }
+    }
+
+    public boolean isPaused() {
+        return scheduler.isPaused();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    public OccupancyGrid getOccupancy() {
+        return occupancy;
+    }
+
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+
+    public Pacman getPacman() {
+        return pacman;
+    }
+
+    public List<Ghost> getGhosts() {
+        return ghosts;
+    }
+
+    // Null unless the game runs in swarm mode.
+    public GhostSwarm getSwarm() {
+        return swarm;
+    }
+
+    // Live list, for the simulation thread only; renderers read power-ups from render frames.
+    public List<PowerUp> getPowerUps() {
+        return powerUps;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public boolean isPowerModeActive() {
+        return isPowerModeActive;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getElapsedMillis() {
+        return tickCount * 1000 / TICKS_PER_SECOND;
+    }
+
+    public int getLastEatenX() {
+        return lastEatenX;
+    }
+
+    public int getLastEatenY() {
+        return lastEatenY;
+    }
+
+    public int getPelletAnimationFrame() {
+        return pelletAnimationFrame;
+    }
+}
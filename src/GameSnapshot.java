@@ -0,0 +1,68 @@
+// Immutable view of the game state after a tick, for the HUD and other threads that are not
+// drawing the board (see RenderFrame). They never read fields the simulation thread is writing.
+public final class GameSnapshot {
+    private final long tickCount;
+    private final long elapsedMillis;
+    private final int level;
+    private final int score;
+    private final int lives;
+    private final int pelletsLeft;
+    private final boolean powerModeActive;
+    private final boolean paused;
+    private final boolean finished;
+    private final boolean won;
+
+    public GameSnapshot(long tickCount, long elapsedMillis, int level, int score, int lives, int pelletsLeft,
+                        boolean powerModeActive, boolean paused, boolean finished, boolean won) {
+        this.tickCount = tickCount;
+        this.elapsedMillis = elapsedMillis;
+        this.level = level;
+        this.score = score;
+        this.lives = lives;
+        this.pelletsLeft = pelletsLeft;
+        this.powerModeActive = powerModeActive;
+        this.paused = paused;
+        this.finished = finished;
+        this.won = won;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getPelletsLeft() {
+        return pelletsLeft;
+    }
+
+    public boolean isPowerModeActive() {
+        return powerModeActive;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isWon() {
+        return won;
+    }
+}
@@ -1,89 +1,168 @@
 import javax.swing.*;
 import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class GameWindow extends JFrame {
-    private static final int CELL_SIZE = 30;
-    private static final int GHOST_COUNT = 4;
-    private static final int GAME_SPEED = 16;
-
-    private static final int PELLET_POINTS = 10;
-    private static final int POWER_PELLET_POINTS = 50;
-    private static final int GHOST_POINTS = 200;
-
-    private static final Color[] GHOST_COLORS = {
-            Color.RED,    // BLINKY
-            Color.PINK,   // PINKY
-            Color.CYAN,   // INKY
-            Color.ORANGE  // CLYDE
-    };
+    private static final int CELL_SIZE = GameSimulation.CELL_SIZE;
+    private static final double SCREEN_FILL = 0.85;
+    private static final int TICKS_PER_SECOND = GameSimulation.TICKS_PER_SECOND;
+    private static final boolean ACTIVE_RENDERING = Boolean.getBoolean("pacman.activeRendering");
+    private static final int TARGET_FPS = Integer.getInteger("pacman.targetFps", TICKS_PER_SECOND);
+    private static final boolean PRINT_FRAME_STATS = Boolean.getBoolean("pacman.frameStats");
+    private static final long SOUND_LOAD_TIMEOUT_MILLIS = 2000;
+    private static final int HUD_REFRESH_MILLIS = 100;
+    private static final long LOOP_STOP_TIMEOUT_MILLIS = 2000;
+    // Beyond this many ghosts (swarm mode) the whole board is repainted instead of dirty regions.
+    private static final int DIRTY_REGION_GHOST_LIMIT = 64;
+    private static final String REPLAY_FILE = System.getProperty("pacman.replayFile", "last.replay");
+    private static final boolean PERF_ENABLED = Boolean.getBoolean("pacman.perf");
+    private static final String PERF_FILE = System.getProperty("pacman.perfFile", "perf.csv");
+    private static final Rectangle PERF_OVERLAY = new Rectangle(8, 8, 400, 152);
+    private static final Font PERF_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
 
     private final MainMenu mainMenu;
     private final JPanel gamePanel;
     private final JPanel statusPanel;
+    private final JLabel levelLabel;
     private final JLabel scoreLabel;
     private final JLabel timeLabel;
     private final JLabel livesLabel;
     private final JLabel pelletsLeftLabel;
 
-    private final int[][] maze;
-    private final Pacman pacman;
-    private final List<Ghost> ghosts;
-    private final List<PowerUp> powerUps;
+    private final GameSimulation simulation;
+    private final Replay replay;
+    private final boolean playback;
+    private final AtomicReference<Direction> pendingDirection = new AtomicReference<>();
+    private final PerfMonitor perf;
+    private final Maze maze;
+    private final BoardRenderer boardRenderer;
+    private final RenderBuffer renderBuffer;
+    private final ActiveRenderer activeRenderer;
+    private Rectangle dirtyRegion = new Rectangle();
+    private Rectangle previousDirtyRegion = new Rectangle();
+    private Level paintedLevel;
 
     private final AtomicBoolean isGameRunning;
-    private boolean isPowerModeActive;
-    private int score = 0;
-    private int lives = 3;
-    private int pelletsLeft = 0;
-    private long gameStartTime;
-    private Thread powerUpGeneratorThread;
-    private Thread gameTimeThread;
-
-    private Point lastEatenPellet;
-    private int pelletAnimationFrame = -1;
-    private static final int PELLET_ANIMATION_FRAMES = 5;
-
-    public GameWindow(String selectedSize, MainMenu mainMenu) {
+    private Timer hudTimer;
+    // Set on the EDT once the window has started returning to the menu.
+    private boolean leftGame;
+    private GameLoop gameLoop;
+    private volatile double renderAlpha = 1.0;
+    private final double renderScale;
+
+    // A game built ahead of its window: the simulation and the renderer holding its layers.
+    static final class PreparedGame {
+        private final GameSimulation simulation;
+        private final BoardRenderer renderer;
+
+        private PreparedGame(GameSimulation simulation, BoardRenderer renderer) {
+            this.simulation = simulation;
+            this.renderer = renderer;
+        }
+
+        // For a game that will not be played: stops building its levels ahead.
+        void discard() {
+            simulation.close();
+        }
+    }
+
+    // Builds the simulation with its first level and that level's layers, and waits for the
+    // sounds, off the EDT.
+    public static CompletableFuture<PreparedGame> prepare(Replay replay) {
+        return CompletableFuture.supplyAsync(() -> {
+            double scale = computeRenderScale(replay.getWidth() * CELL_SIZE, replay.getHeight() * CELL_SIZE);
+            BoardRenderer renderer = new BoardRenderer(CELL_SIZE, (int) Math.ceil(CELL_SIZE * scale));
+            GameSimulation simulation = replay.createSimulation(renderer::prepareLevel);
+            SoundManager.awaitLoaded(SOUND_LOAD_TIMEOUT_MILLIS);
+            return new PreparedGame(simulation, renderer);
+        });
+    }
+
+    // Opens the window on the EDT once the simulation is ready. With playback set, the replay's
+    // inputs drive Pacman and the keyboard only pauses or quits.
+    public static void open(Replay replay, CompletableFuture<PreparedGame> game, boolean playback,
+                            MainMenu mainMenu) {
+        game.whenComplete((prepared, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                System.err.println("Error to start game: " + error.getMessage());
+                JOptionPane.showMessageDialog(mainMenu, "Could not start the game: " + error.getMessage());
+                mainMenu.setVisible(true);
+                return;
+            }
+            new GameWindow(replay, prepared, playback, mainMenu).setVisible(true);
+        }));
+    }
+
+    private GameWindow(Replay replay, PreparedGame game, boolean playback, MainMenu mainMenu) {
         this.mainMenu = mainMenu;
+        this.replay = replay;
+        this.playback = playback;
         this.isGameRunning = new AtomicBoolean(true);
-        this.ghosts = new ArrayList<>();
-        this.powerUps = new ArrayList<>();
 
-        setTitle("Pacman Game");
-        setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        setTitle(playback ? "Pacman Game - Replay" : "Pacman Game");
+        // Closing the window leaves the game like Escape does.
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                returnToMenu();
+            }
+        });
         setResizable(false);
 
-        this.maze = MazeGenerator.getMaze(selectedSize);
-        int boardSize = maze.length;
-
-        gamePanel = new JPanel() {
+        this.simulation = game.simulation;
+        this.boardRenderer = game.renderer;
+        this.renderBuffer = simulation.enableRendering();
+        this.maze = simulation.getMaze();
+        this.perf = simulation.getPerfMonitor();
+        perf.setEnabled(PERF_ENABLED);
+        if (playback) {
+            simulation.setInputSource(replay.playback());
+        } else {
+            simulation.setInputSource(replay.recording(sim -> pendingDirection.getAndSet(null)));
+        }
+        simulation.setListener(new GameEventHandler());
+        int boardWidth = maze.getWidth() * CELL_SIZE;
+        int boardHeight = maze.getHeight() * CELL_SIZE;
+        this.renderScale = computeRenderScale(boardWidth, boardHeight);
+        int panelWidth = (int) Math.ceil(boardWidth * renderScale);
+        int panelHeight = (int) Math.ceil(boardHeight * renderScale);
+
+        gamePanel = new JPanel(new BorderLayout()) {
             @Override
             protected void paintComponent(Graphics g) {
                 super.paintComponent(g);
-                drawGame(g);
+                if (activeRenderer == null) {
+                    drawGame(g);
+                }
             }
         };
-        gamePanel.setPreferredSize(new Dimension(boardSize * CELL_SIZE, boardSize * CELL_SIZE));
-        gamePanel.setBackground(ThemeManager.getCurrentTheme().backgroundColor);
+        gamePanel.setPreferredSize(new Dimension(panelWidth, panelHeight));
+
+        if (ACTIVE_RENDERING) {
+            activeRenderer = new ActiveRenderer(panelWidth, panelHeight);
+            gamePanel.add(activeRenderer.getCanvas(), BorderLayout.CENTER);
+        } else {
+            activeRenderer = null;
+        }
 
         statusPanel = new JPanel();
         statusPanel.setLayout(new FlowLayout(FlowLayout.CENTER, 20, 5));
-        statusPanel.setBackground(ThemeManager.getCurrentTheme().backgroundColor);
         
-        scoreLabel = new JLabel("Score: 0");
-        timeLabel = new JLabel("Time: 0:00");
-        livesLabel = new JLabel("Lives: " + lives);
-        pelletsLeftLabel = new JLabel("Points left 0");
+        levelLabel = new JLabel();
+        scoreLabel = new JLabel();
+        timeLabel = new JLabel();
+        livesLabel = new JLabel();
+        pelletsLeftLabel = new JLabel();
 
-        scoreLabel.setForeground(ThemeManager.getCurrentTheme().textColor);
-        timeLabel.setForeground(ThemeManager.getCurrentTheme().textColor);
-        livesLabel.setForeground(ThemeManager.getCurrentTheme().textColor);
-        pelletsLeftLabel.setForeground(ThemeManager.getCurrentTheme().textColor);
+        applyTheme();
 
+        statusPanel.add(levelLabel);
         statusPanel.add(scoreLabel);
         statusPanel.add(timeLabel);
         statusPanel.add(livesLabel);
@@ -93,14 +172,9 @@ public class GameWindow extends JFrame {
         add(statusPanel, BorderLayout.NORTH);
         add(gamePanel, BorderLayout.CENTER);
 
-        int[] pacmanStart = findPacmanStart();
-        pacman = new Pacman(this, maze, pacmanStart[0], pacmanStart[1]);
-        initializeGhosts();
-
-
         setupKeyBindings();
 
-        countPellets();
+        updateHud();
 
         startGameThreads();
 
@@ -111,57 +185,47 @@ public class GameWindow extends JFrame {
     }
 
     private void startGameThreads() {
-        gameStartTime = System.currentTimeMillis();
-
-        gameTimeThread = new Thread(() -> {
-            while (isGameRunning.get()) {
-                try {
-                    updateGameTime();
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        gameTimeThread.start();
-
-        powerUpGeneratorThread = new Thread(() -> {
-            while (isGameRunning.get()) {
-                try {
-                    Thread.sleep(5000);
-                    if (new Random().nextDouble() < 0.25) {
-                        generatePowerUp();
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        powerUpGeneratorThread.start();
+        // The labels are refreshed on the EDT from the latest snapshot rather than from the
+        // simulation thread.
+        hudTimer = new Timer(HUD_REFRESH_MILLIS, e -> updateHud());
+        hudTimer.start();
 
         startGameLoop();
     }
 
     private void startGameLoop() {
-        Thread gameLoop = new Thread(() -> {
-            while (isGameRunning.get()) {
-                try {
-                    pacman.move();
-                    moveGhosts();
-                    checkCollisions();
-                    repaintGame();
-                    Thread.sleep(GAME_SPEED);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+        gameLoop = new GameLoop(TICKS_PER_SECOND, TARGET_FPS, this::tick, alpha -> {
+            renderAlpha = alpha;
+            if (activeRenderer != null) {
+                activeRenderer.render(this::drawGame);
+            } else {
+                repaintGame();
             }
         });
+        gameLoop.setErrorHandler(error -> {
+            isGameRunning.set(false);
+            SwingUtilities.invokeLater(() -> gameFailed(error));
+        });
         gameLoop.start();
     }
 
+    private void gameFailed(Throwable error) {
+        JOptionPane.showMessageDialog(this, "The game stopped after an error: " + error);
+        returnToMenu();
+    }
+
+    private void tick() {
+        if (!isGameRunning.get()) {
+            gameLoop.stop();
+            return;
+        }
+        simulation.tick();
+        if (playback && !simulation.isFinished() && simulation.getTickCount() >= replay.getEndTick()) {
+            isGameRunning.set(false);
+            SwingUtilities.invokeLater(this::returnToMenu);
+        }
+    }
+
     private void setupKeyBindings() {
         InputMap inputMap = gamePanel.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
         ActionMap actionMap = gamePanel.getActionMap();
@@ -177,32 +241,35 @@ public class GameWindow extends JFrame {
         inputMap.put(KeyStroke.getKeyStroke("D"), "move.right");
 
         inputMap.put(KeyStroke.getKeyStroke("ESCAPE"), "menu");
+        inputMap.put(KeyStroke.getKeyStroke("P"), "pause");
+        inputMap.put(KeyStroke.getKeyStroke("F3"), "perf");
+        inputMap.put(KeyStroke.getKeyStroke("T"), "theme");
 
         actionMap.put("move.up", new AbstractAction() {
             @Override
             public void actionPerformed(java.awt.event.ActionEvent e) {
-                pacman.setDirection(Direction.UP);
+                steer(Direction.UP);
             }
         });
 
         actionMap.put("move.down", new AbstractAction() {
             @Override
             public void actionPerformed(java.awt.event.ActionEvent e) {
-                pacman.setDirection(Direction.DOWN);
+                steer(Direction.DOWN);
             }
         });
 
         actionMap.put("move.left", new AbstractAction() {
             @Override
             public void actionPerformed(java.awt.event.ActionEvent e) {
-                pacman.setDirection(Direction.LEFT);
+                steer(Direction.LEFT);
             }
         });
 
         actionMap.put("move.right", new AbstractAction() {
             @Override
             public void actionPerformed(java.awt.event.ActionEvent e) {
-                pacman.setDirection(Direction.RIGHT);
+                steer(Direction.RIGHT);
             }
         });
 
@@ -213,316 +280,310 @@ public class GameWindow extends JFrame {
             }
         });
 
-        gamePanel.setFocusable(true);
-        gamePanel.requestFocusInWindow();
-    }
+        actionMap.put("pause", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                simulation.submit(simulation::togglePause);
+            }
+        });
 
-    private void drawGame(Graphics g) {
-        ThemeManager.Theme currentTheme = ThemeManager.getCurrentTheme();
-        
-        for (int row = 0; row < maze.length; row++) {
-            for (int col = 0; col < maze[row].length; col++) {
-                int x = col * CELL_SIZE;
-                int y = row * CELL_SIZE;
-
-                switch (maze[row][col]) {
-                    case MazeGenerator.WALL:
-                        g.setColor(currentTheme.wallColor);
-                        g.fillRect(x, y, CELL_SIZE, CELL_SIZE);
-                        break;
-                    case MazeGenerator.PELLET:
-                        g.setColor(currentTheme.pelletColor);
-                        g.fillOval(x + CELL_SIZE/3, y + CELL_SIZE/3, CELL_SIZE/3, CELL_SIZE/3);
-                        break;
-                    case MazeGenerator.POWER_PELLET:
-                        g.setColor(currentTheme.pelletColor);
-                        g.fillOval(x + CELL_SIZE/4, y + CELL_SIZE/4, CELL_SIZE/2, CELL_SIZE/2);
-                        break;
-                }
+        actionMap.put("perf", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                perf.setEnabled(!perf.isEnabled());
+                gamePanel.repaint();
             }
-        }
+        });
 
-        for (PowerUp powerUp : powerUps) {
-            powerUp.draw(g);
-        }
+        // The board only swaps its palette; nothing is re-rasterized.
+        actionMap.put("theme", new AbstractAction() {
+            @Override
+            public void actionPerformed(java.awt.event.ActionEvent e) {
+                ThemeManager.setCurrentTheme(ThemeManager.getCurrentTheme().next());
+                applyTheme();
+                gamePanel.repaint();
+            }
+        });
 
-        for (Ghost ghost : ghosts) {
-            ghost.draw(g);
-        }
+        gamePanel.setFocusable(true);
+        gamePanel.requestFocusInWindow();
+    }
 
-        pacman.draw(g);
+    private void applyTheme() {
+        ThemeManager.Theme theme = ThemeManager.getCurrentTheme();
+        gamePanel.setBackground(theme.backgroundColor);
+        statusPanel.setBackground(theme.backgroundColor);
+        levelLabel.setForeground(theme.textColor);
+        scoreLabel.setForeground(theme.textColor);
+        timeLabel.setForeground(theme.textColor);
+        livesLabel.setForeground(theme.textColor);
+        pelletsLeftLabel.setForeground(theme.textColor);
+    }
 
-        if (lastEatenPellet != null && pelletAnimationFrame >= 0) {
-            int x = lastEatenPellet.x * CELL_SIZE;
-            int y = lastEatenPellet.y * CELL_SIZE;
-            
-            g.setColor(currentTheme.pelletColor);
-            int size = (PELLET_ANIMATION_FRAMES - pelletAnimationFrame) * 2;
-            g.fillOval(x + CELL_SIZE/2 - size/2, 
-                      y + CELL_SIZE/2 - size/2, 
-                      size, size);
+    // Applied by the simulation at the start of the next tick, which is also when it gets recorded.
+    private void steer(Direction direction) {
+        if (!playback) {
+            pendingDirection.set(direction);
         }
     }
 
-    public List<Ghost> getGhosts() {
-        return ghosts;
-    }
-    private void checkCollisions() {
-        int pacmanTileX = pacman.getX() / CELL_SIZE;
-        int pacmanTileY = pacman.getY() / CELL_SIZE;
-
-        if (maze[pacmanTileY][pacmanTileX] == MazeGenerator.PELLET) {
-            eatPellet(pacmanTileX, pacmanTileY);
-        } else if (maze[pacmanTileY][pacmanTileX] == MazeGenerator.POWER_PELLET) {
-            eatPowerPellet(pacmanTileX, pacmanTileY);
-        }
-
-        for (Ghost ghost : ghosts) {
-            if (ghost.intersects(pacman)) {
-                if (isPowerModeActive) {
-                    updateScore(GHOST_POINTS);
-                    ghost.respawn();
-                    SoundManager.playEatGhost();
-                } else {
-                    handlePacmanDeath();
-                }
-            }
+    // Large boards are scaled down to fit the screen; game logic keeps working in unscaled pixels,
+    // while the maze layers are rendered at the scaled size.
+    private static double computeRenderScale(int boardWidth, int boardHeight) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return 1.0;
         }
-
-        powerUps.removeIf(powerUp -> {
-            if (powerUp.isActive() && powerUp.intersects(pacman)) {
-                powerUp.apply(this);
-                SoundManager.playPowerUp();
-                return true;
-            }
-            return false;
-        });
+        Rectangle screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+        double scale = Math.min(screen.width * SCREEN_FILL / boardWidth, screen.height * SCREEN_FILL / boardHeight);
+        return Math.min(1.0, scale);
     }
 
-    private void eatPellet(int x, int y) {
-        maze[y][x] = MazeGenerator.PATH;
-        updateScore(PELLET_POINTS);
-        pelletsLeft--;
-        updatePelletsLeftLabel();
-
-        SoundManager.playEatPellet();
-
-        lastEatenPellet = new Point(x, y);
-        pelletAnimationFrame = 0;
-        
-        new Thread(() -> {
-            try {
-                while (pelletAnimationFrame < PELLET_ANIMATION_FRAMES) {
-                    Thread.sleep(50);
-                    pelletAnimationFrame++;
-                    repaint(x * CELL_SIZE - 5, y * CELL_SIZE - 5, 
-                           CELL_SIZE + 10, CELL_SIZE + 10);
+    private void drawGame(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            if (renderScale < 1.0) {
+                g.scale(renderScale, renderScale);
+            }
+            GameEvents.Paint event = GameEvents.PAINT.isEnabled() ? new GameEvents.Paint() : null;
+            if (event != null) {
+                event.begin();
+            }
+            perf.start(PerfMonitor.Phase.PAINT);
+            boardRenderer.draw(g, renderBuffer.acquire(), renderAlpha);
+            perf.stop(PerfMonitor.Phase.PAINT);
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.width = gamePanel.getWidth();
+                    event.height = gamePanel.getHeight();
+                    event.scale = renderScale;
+                    event.activeRendering = activeRenderer != null;
+                    event.commit();
                 }
-                pelletAnimationFrame = -1;
-                lastEatenPellet = null;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
             }
-        }).start();
+        } finally {
+            g.dispose();
+        }
+        if (perf.isEnabled()) {
+            drawPerfOverlay(graphics);
+        }
+    }
 
-        checkWinCondition();
+    private void drawPerfOverlay(Graphics g) {
+        g.setColor(new Color(0, 0, 0, 180));
+        g.fillRect(PERF_OVERLAY.x, PERF_OVERLAY.y, PERF_OVERLAY.width, PERF_OVERLAY.height);
+        g.setColor(Color.GREEN);
+        g.setFont(PERF_FONT);
+        int y = PERF_OVERLAY.y + 14;
+        for (String line : perf.summaryLines()) {
+            g.drawString(line, PERF_OVERLAY.x + 6, y);
+            y += 14;
+        }
+        FrameStats frameStats = gameLoop.getFrameStats();
+        g.drawString(String.format(Locale.ROOT, "fps %d  frame avg %.2fms max %.2fms", frameStats.getFps(),
+                frameStats.getAverageFrameMillis(), frameStats.getMaxFrameMillis()), PERF_OVERLAY.x + 6, y);
+        y += 14;
+        g.drawString(String.format(Locale.ROOT, "tick %.2f/%.2fms max %.2fms  dropped %d",
+                gameLoop.getLastTickNanos() / 1e6, gameLoop.getTickNanos() / 1e6,
+                gameLoop.getMaxTickNanos() / 1e6, gameLoop.getDroppedTicks()), PERF_OVERLAY.x + 6, y);
     }
 
-    private void eatPowerPellet(int x, int y) {
-        maze[y][x] = MazeGenerator.PATH;
-        updateScore(POWER_PELLET_POINTS);
-        activatePowerMode();
-        pelletsLeft--;
-        updatePelletsLeftLabel();
+    // Called on the simulation thread; anything touching Swing goes through invokeLater.
+    private class GameEventHandler implements GameListener {
+        @Override
+        public void onPacmanDeath(int livesLeft) {
+            SoundManager.playDeath();
+        }
 
-        lastEatenPellet = new Point(x, y);
-        pelletAnimationFrame = 0;
-        
-        new Thread(() -> {
-            try {
-                while (pelletAnimationFrame < PELLET_ANIMATION_FRAMES) {
-                    Thread.sleep(70);
-                    pelletAnimationFrame++;
-                    repaint(x * CELL_SIZE - 10, y * CELL_SIZE - 10, 
-                           CELL_SIZE + 20, CELL_SIZE + 20);
-                }
-                pelletAnimationFrame = -1;
-                lastEatenPellet = null;
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        @Override
+        public void onPelletEaten(int x, int y, int kind, int pelletsLeft) {
+            if (kind == Maze.PELLET) {
+                SoundManager.playEatPellet();
             }
-        }).start();
+        }
 
-        checkWinCondition();
-    }
+        @Override
+        public void onGhostEaten() {
+            SoundManager.playEatGhost();
+        }
 
-    private void handlePacmanDeath() {
-        lives--;
-        livesLabel.setText("Lives: " + lives);
+        @Override
+        public void onPowerUpCollected(PowerUp.PowerUpType type) {
+            SoundManager.playPowerUp();
+        }
 
-        SoundManager.playDeath();
+        @Override
+        public void onLevelStarted(int level) {
+            SoundManager.playStartGame();
+        }
 
-        if (lives <= 0) {
-            gameOver(false);
-        } else {
-            respawnPacman();
-            respawnGhosts();
+        @Override
+        public void onGameOver(boolean won) {
+            isGameRunning.set(false);
+            SwingUtilities.invokeLater(() -> gameOver(won));
         }
     }
 
     private void gameOver(boolean won) {
-        isGameRunning.set(false);
+        updateHud();
+        GameSnapshot snapshot = simulation.getSnapshot();
+        int score = snapshot.getScore();
+        if (playback) {
+            JOptionPane.showMessageDialog(this, String.format("Replay finished: %s, score %d",
+                    won ? "won" : "lost", score));
+            returnToMenu();
+            return;
+        }
+
+        long elapsedMillis = snapshot.getElapsedMillis();
+        String time = formatTime(elapsedMillis);
+        String board = HighScore.boardOf(maze.getWidth(), maze.getHeight());
         String message;
         if (won) {
             message = String.format("Congratulations! You Won!\n" +
                                   "Score %d\n" +
                                   "Time: %s\n" +
+                                  "Rank: #%d on %s\n" +
                                   "Enter your name:",
-                                  score, timeLabel.getText().substring(6));
+                                  score, time, HighScore.rankOf(board, score), board);
         } else {
             message = String.format("Game over!\n" +
                             "Score %d\n" +
                             "Time: %s\n" +
+                            "Rank: #%d on %s\n" +
                             "Enter your name:",
-                    score, timeLabel.getText().substring(6));
+                    score, time, HighScore.rankOf(board, score), board);
         }
 
-        SwingUtilities.invokeLater(() -> {
-            String name = JOptionPane.showInputDialog(this, message);
-            if (name != null && !name.trim().isEmpty()) {
-                HighScore.addScore(name, score);
-            }
-            returnToMenu();
-        });
+        String name = JOptionPane.showInputDialog(this, message);
+        if (name != null && !name.trim().isEmpty()) {
+            HighScore.addScore(name, score, maze.getWidth(), maze.getHeight(), elapsedMillis);
+        }
+        returnToMenu();
     }
 
     private void returnToMenu() {
+        if (leftGame) return;
+        leftGame = true;
         isGameRunning.set(false);
+        hudTimer.stop();
+        // The replay and the perf counters are written by the loop thread until it has finished.
+        boolean stopped = gameLoop.stopAndWait(LOOP_STOP_TIMEOUT_MILLIS);
+        if (!stopped) {
+            System.err.println("Error to stop the game loop, not saving replay or performance data");
+        }
+        if (stopped && !playback) {
+            saveReplay();
+        }
+        if (stopped && perf.hasSamples()) {
+            exportPerf();
+        }
+        if (PRINT_FRAME_STATS) {
+            System.out.println("Frame stats: " + gameLoop.getFrameStats());
+        }
+        simulation.close();
         dispose();
         mainMenu.setVisible(true);
     }
 
-    private void updateGameTime() {
-        long currentTime = System.currentTimeMillis() - gameStartTime;
-        long seconds = currentTime / 1000;
-        long minutes = seconds / 60;
-        seconds = seconds % 60;
-        timeLabel.setText(String.format("Time: %d:%02d", minutes, seconds));
-    }
-
-    private void generatePowerUp() {
-        Random random = new Random();
-        int x, y;
-        do {
-            x = random.nextInt(maze.length);
-            y = random.nextInt(maze[0].length);
-        } while (maze[y][x] != MazeGenerator.PATH);
-
-        PowerUp powerUp = new PowerUp(x * CELL_SIZE, y * CELL_SIZE,
-                PowerUp.PowerUpType.values()[random.nextInt(PowerUp.PowerUpType.values().length)]);
-        powerUps.add(powerUp);
-    }
-
-    private void countPellets() {
-        pelletsLeft = 0;
-        for (int[] row : maze) {
-            for (int cell : row) {
-                if (cell == MazeGenerator.PELLET || cell == MazeGenerator.POWER_PELLET) {
-                    pelletsLeft++;
-                }
+    private void saveReplay() {
+        replay.setEndTick(simulation.getTickCount());
+        CompletableFuture.runAsync(() -> {
+            try {
+                replay.write(Paths.get(REPLAY_FILE));
+            } catch (IOException e) {
+                System.err.println("Error to save replay: " + e.getMessage());
             }
-        }
-        updatePelletsLeftLabel();
-    }
-
-    private void updatePelletsLeftLabel() {
-        pelletsLeftLabel.setText("Points left: " + pelletsLeft);
+        });
     }
 
-    private int[] findPacmanStart() {
-        for (int i = 0; i < maze.length; i++) {
-            for (int j = 0; j < maze[i].length; j++) {
-                if (maze[i][j] == MazeGenerator.PACMAN_START) {
-                    return new int[]{j, i};
-                }
-            }
+    private void exportPerf() {
+        System.out.println("Performance:");
+        for (String line : perf.summaryLines()) {
+            System.out.println("  " + line);
         }
-        return new int[]{1, 1};
-    }
-
-    private void initializeGhosts() {
-        int ghostIndex = 0;
-        for (int i = 0; i < maze.length && ghostIndex < GHOST_COUNT; i++) {
-            for (int j = 0; j < maze[i].length && ghostIndex < GHOST_COUNT; j++) {
-                if (maze[i][j] == MazeGenerator.GHOST_START) {
-                    ghosts.add(new Ghost(this, maze, j, i, GHOST_COLORS[ghostIndex],
-                            Ghost.GhostType.values()[ghostIndex]));
-                    ghostIndex++;
-                }
+        CompletableFuture.runAsync(() -> {
+            try {
+                perf.export(Paths.get(PERF_FILE));
+            } catch (IOException e) {
+                System.err.println("Error to export performance data: " + e.getMessage());
             }
-        }
+        });
     }
 
-    private void moveGhosts() {
-        for (Ghost ghost : ghosts) {
-            ghost.move();
-        }
+    private void updateHud() {
+        GameSnapshot snapshot = simulation.getSnapshot();
+        levelLabel.setText("Level: " + snapshot.getLevel());
+        scoreLabel.setText("Score: " + snapshot.getScore());
+        timeLabel.setText("Time: " + formatTime(snapshot.getElapsedMillis()));
+        livesLabel.setText("Lives: " + snapshot.getLives());
+        pelletsLeftLabel.setText("Points left: " + snapshot.getPelletsLeft());
     }
 
-    private void respawnGhosts() {
-        for (Ghost ghost : ghosts) {
-            ghost.respawn();
-        }
-    }
-
-    private void respawnPacman() {
-        int[] start = findPacmanStart();
-        pacman.setPosition(start[0], start[1]);
+    private static String formatTime(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
     }
 
+    // Repaints the bounding box of everything sprites covered last frame or may cover this frame.
+    // Swing would merge separate dirty rectangles of the panel into this same union anyway, so
+    // sprites on opposite corners repaint most of the board; active rendering avoids that cost.
+    // Runs on the loop thread right after a tick, so it may read the frame that tick published.
     public void repaintGame() {
-        gamePanel.repaint();
-    }
-
-    public void updateScore(int points) {
-        score += points;
-        scoreLabel.setText("Score: " + score);
-    }
-
-    public void activatePowerMode() {
-        isPowerModeActive = true;
-        for (Ghost ghost : ghosts) {
-            ghost.setVulnerable(true);
+        Rectangle region = previousDirtyRegion;
+        previousDirtyRegion = dirtyRegion;
+        dirtyRegion = region;
+        region.setBounds(0, 0, 0, 0);
+
+        RenderFrame frame = renderBuffer.getPublished();
+        if (frame.getLevel() != paintedLevel || frame.getGhostCount() > DIRTY_REGION_GHOST_LIMIT) {
+            paintedLevel = frame.getLevel();
+            gamePanel.repaint();
+            return;
+        }
+        markDirty(frame.getPacmanPrevX(), frame.getPacmanPrevY(), frame.getPacmanX(), frame.getPacmanY(), 0);
+        for (int i = 0; i < frame.getGhostCount(); i++) {
+            markDirty(frame.getGhostPrevX(i), frame.getGhostPrevY(i), frame.getGhostX(i), frame.getGhostY(i), 0);
+        }
+        for (int i = 0; i < frame.getPowerUpCount(); i++) {
+            markDirty(frame.getPowerUpX(i), frame.getPowerUpY(i), frame.getPowerUpX(i), frame.getPowerUpY(i), 0);
+        }
+        int eatenX = frame.getLastEatenX();
+        int eatenY = frame.getLastEatenY();
+        if (eatenX >= 0) {
+            int x = eatenX * CELL_SIZE;
+            int y = eatenY * CELL_SIZE;
+            markDirty(x, y, x, y, 10);
         }
 
-        new Thread(() -> {
-            try {
-                Thread.sleep(10000); // 10 секунд
-                isPowerModeActive = false;
-                for (Ghost ghost : ghosts) {
-                    ghost.setVulnerable(false);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-    }
-
-    public Pacman getPacman() {
-        return pacman;
-    }
-
-    public int[][] getMaze() {
-        return maze;
-    }
-
-    public boolean isGameRunning() {
-        return isGameRunning.get();
+        if (perf.isEnabled()) {
+            gamePanel.repaint(PERF_OVERLAY);
+        }
+        if (previousDirtyRegion.isEmpty()) {
+            gamePanel.repaint(region);
+        } else {
+            gamePanel.repaint(region.union(previousDirtyRegion));
+        }
     }
 
-    private void checkWinCondition() {
-        if (pelletsLeft <= 0) {
-            gameOver(true);
+    private void markDirty(int fromX, int fromY, int toX, int toY, int margin) {
+        int x = Math.min(fromX, toX) - margin;
+        int y = Math.min(fromY, toY) - margin;
+        int width = Math.abs(toX - fromX) + CELL_SIZE + margin * 2;
+        int height = Math.abs(toY - fromY) + CELL_SIZE + margin * 2;
+        if (renderScale < 1.0) {
+            int scaledX = (int) Math.floor(x * renderScale);
+            int scaledY = (int) Math.floor(y * renderScale);
+            width = (int) Math.ceil(width * renderScale) + 1;
+            height = (int) Math.ceil(height * renderScale) + 1;
+            x = scaledX;
+            y = scaledY;
+        }
+        if (dirtyRegion.isEmpty()) {
+            dirtyRegion.setBounds(x, y, width, height);
+        } else {
+            dirtyRegion.add(x, y);
+            dirtyRegion.add(x + width, y + height);
         }
     }
-} 
\ No newline at end of file
+}
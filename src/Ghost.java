@@ -1,63 +1,69 @@
-import javax.swing.*;
-import java.awt.*;
 import java.util.*;
-import java.util.List;
 
 public class Ghost {
     private static final int SIZE = 30;
     private static final int BASE_SPEED = 4;
     private static final int PERSONALITY_CHANGE_TIME = 300;
+    private static final Direction[] DIRECTIONS = Direction.values();
     
     private int x;
     private int y;
+    private int prevX;
+    private int prevY;
+    private int plannedX;
+    private int plannedY;
     private final int startX;
     private final int startY;
-    private final Color color;
-    private final int[][] maze;
     private Direction currentDirection;
     private boolean isVulnerable = false;
     private boolean isFrozen = false;
-    private final Random random = new Random();
+    private final Random random;
     private final GhostType type;
-    private final GameWindow gameWindow;
+    private final GameSimulation simulation;
 
     private int personalityTimer = 0;
     private double speedMultiplier = 1.0;
     private int moodCounter = 0;
     private GhostMood currentMood;
+    // Scratch space for choosing a direction, per ghost since ghosts may decide in parallel.
+    private final Direction[] candidates = new Direction[DIRECTIONS.length];
+    private final double[] candidateScores = new double[DIRECTIONS.length];
 
     private enum GhostMood {
-        AGGRESSIVE(1.2, 0.8),
-        CAUTIOUS(0.8, 0.4),
-        CHAOTIC(1.0, 1.0),
-        SLEEPY(0.6, 0.2);
+        AGGRESSIVE(1.2, 0.8, 0.9),
+        CAUTIOUS(0.8, 0.4, 0.5),
+        CHAOTIC(1.0, 1.0, 0.3),
+        SLEEPY(0.6, 0.2, 0.6);
         
         final double speedMod;
         final double directionChangeProbability;
+        final double pursuitProbability;
         
-        GhostMood(double speedMod, double directionChangeProbability) {
+        GhostMood(double speedMod, double directionChangeProbability, double pursuitProbability) {
             this.speedMod = speedMod;
             this.directionChangeProbability = directionChangeProbability;
+            this.pursuitProbability = pursuitProbability;
         }
     }
 
     public enum GhostType {
-        TACTIC,
-        HUNTER,
-        SCOUT,
-        TRICKSTER
+        TACTIC,    // BLINKY
+        HUNTER,    // PINKY
+        SCOUT,     // INKY
+        TRICKSTER  // CLYDE
     }
 
-    public Ghost(GameWindow gameWindow, int[][] maze, int startX, int startY, Color color, GhostType type) {
-        this.gameWindow = gameWindow;
-        this.maze = maze;
+    public Ghost(GameSimulation simulation, int startX, int startY, GhostType type, Random random) {
+        this.simulation = simulation;
+        this.random = random;
         this.x = startX * SIZE;
         this.y = startY * SIZE;
+        this.prevX = x;
+        this.prevY = y;
         this.startX = startX * SIZE;
         this.startY = startY * SIZE;
-        this.color = color;
         this.type = type;
-        this.currentDirection = Direction.values()[random.nextInt(Direction.values().length)];
+        this.currentDirection = DIRECTIONS[random.nextInt(DIRECTIONS.length)];
         this.currentMood = GhostMood.values()[random.nextInt(GhostMood.values().length)];
         updatePersonality();
     }
@@ -73,7 +79,14 @@ public class Ghost {
         }
     }
 
-    public void move() {
+    // Decide phase: picks this tick's step without taking it. Ghosts may decide in parallel, so
+    // this reads only the grid as the previous tick left it, Pacman and the ghost's own state
+    // (including its own Random), and writes nothing but this ghost's fields.
+    void decide() {
+        prevX = x;
+        prevY = y;
+        plannedX = x;
+        plannedY = y;
         if (isFrozen) return;
         
         updatePersonality();
@@ -112,37 +125,55 @@ public class Ghost {
 
         if (shouldChangeDirection) {
             moodCounter = 0;
-            chooseNewDirection(currentSpeed);
+            Direction pursuit = random.nextDouble() < currentMood.pursuitProbability ? getNextDirection() : null;
+            if (pursuit != null && canMove(x + pursuit.dx * currentSpeed, y + pursuit.dy * currentSpeed)) {
+                currentDirection = pursuit;
+            } else {
+                chooseNewDirection(currentSpeed);
+            }
         }
 
         nextX = x + (currentDirection.dx * currentSpeed);
         nextY = y + (currentDirection.dy * currentSpeed);
         
         if (canMove(nextX, nextY)) {
-            x = nextX;
-            y = nextY;
+            plannedX = nextX;
+            plannedY = nextY;
         }
     }
 
-    private void chooseNewDirection(int currentSpeed) {
-        List<DirectionScore> possibleDirections = new ArrayList<>();
+    // Commit phase, one ghost at a time in list order; GameSimulation has already removed this
+    // ghost from the grid. The step is dropped if a ghost committed before it took the spot.
+    void commit() {
+        if (!simulation.getOccupancy().isBlocked(plannedX, plannedY)) {
+            x = plannedX;
+            y = plannedY;
+        }
+    }
 
-        for (Direction dir : Direction.values()) {
+    private void chooseNewDirection(int currentSpeed) {
+        int count = 0;
+        for (Direction dir : DIRECTIONS) {
             int newX = x + (dir.dx * currentSpeed);
             int newY = y + (dir.dy * currentSpeed);
             
             if (canMove(newX, newY)) {
                 double score = evaluateDirection(dir, newX, newY);
-                possibleDirections.add(new DirectionScore(dir, score));
+                // Best score first; equal scores keep their order, as a stable sort would.
+                int i = count++;
+                while (i > 0 && Double.compare(score, candidateScores[i - 1]) > 0) {
+                    candidates[i] = candidates[i - 1];
+                    candidateScores[i] = candidateScores[i - 1];
+                    i--;
+                }
+                candidates[i] = dir;
+                candidateScores[i] = score;
             }
         }
         
-        if (!possibleDirections.isEmpty()) {
-
-            possibleDirections.sort((a, b) -> Double.compare(b.score, a.score));
-
-            int maxIndex = Math.min(3, possibleDirections.size());
-            currentDirection = possibleDirections.get(random.nextInt(maxIndex)).direction;
+        if (count > 0) {
+            int maxIndex = Math.min(3, count);
+            currentDirection = candidates[random.nextInt(maxIndex)];
         }
     }
 
@@ -172,7 +203,7 @@ public class Ghost {
     }
 
     private boolean isTowardsPacman(Direction dir) {
-        Pacman pacman = gameWindow.getPacman();
+        Pacman pacman = simulation.getPacman();
         int pacmanX = pacman.getX();
         int pacmanY = pacman.getY();
         
@@ -197,113 +228,49 @@ public class Ghost {
     }
 
     private boolean isNearPacman() {
-        Pacman pacman = gameWindow.getPacman();
+        Pacman pacman = simulation.getPacman();
         int dx = Math.abs(pacman.getX() - x);
         int dy = Math.abs(pacman.getY() - y);
         return dx < SIZE * 4 && dy < SIZE * 4;
     }
 
-    private static class DirectionScore {
-        Direction direction;
-        double score;
-        
-        DirectionScore(Direction direction, double score) {
-            this.direction = direction;
-            this.score = score;
-        }
-    }
+    private Direction getNextDirection() {
+        Pacman pacman = simulation.getPacman();
+        Pathfinder pathfinder = simulation.getPathfinder();
+        int tileX = (x + SIZE/2) / SIZE;
+        int tileY = (y + SIZE/2) / SIZE;
+        int pacmanTileX = (pacman.getX() + SIZE/2) / SIZE;
+        int pacmanTileY = (pacman.getY() + SIZE/2) / SIZE;
 
-    public void draw(Graphics g) {
-        g.setColor(isVulnerable ? Color.BLUE : color);
-        g.fillOval(x, y, SIZE, SIZE);
-
-        // Добавляем глаза
-        g.setColor(isVulnerable ? Color.WHITE : Color.WHITE);
-        g.fillOval(x + SIZE/4, y + SIZE/4, SIZE/4, SIZE/4);
-        g.fillOval(x + SIZE/2, y + SIZE/4, SIZE/4, SIZE/4);
-
-        // Зрачки
-        if (!isVulnerable) {
-            g.setColor(Color.BLACK);
-            int pupilOffset = 2;
-            switch (currentDirection) {
-                case LEFT:
-                    pupilOffset = -2;
-                    break;
-                case RIGHT:
-                    pupilOffset = 2;
-                    break;
-                case UP:
-                    pupilOffset = 0;
-                    break;
-                case DOWN:
-                    pupilOffset = 0;
-                    break;
-            }
-            g.fillOval(x + SIZE/4 + pupilOffset, y + SIZE/4, SIZE/8, SIZE/8);
-            g.fillOval(x + SIZE/2 + pupilOffset, y + SIZE/4, SIZE/8, SIZE/8);
+        if (isVulnerable) {
+            return pathfinder.directionAway(tileX, tileY, pacmanTileX, pacmanTileY);
         }
-    }
-
-    private void moveScared() {
-        Pacman pacman = gameWindow.getPacman();
-        int pacmanX = pacman.getX();
-        int pacmanY = pacman.getY();
-
-        Direction awayDirection = getPathToTarget(
-                x + (x - pacmanX),
-                y + (y - pacmanY)
-        );
 
-        if (awayDirection != null && random.nextDouble() < 0.8) { // 80% шанс убегать
-            int newX = x + (awayDirection.dx * (BASE_SPEED - 1));
-            int newY = y + (awayDirection.dy * (BASE_SPEED - 1));
-
-            if (canMove(newX, newY) && !willCollideWithOtherGhosts(newX, newY)) {
-                currentDirection = awayDirection;
-                x = newX;
-                y = newY;
-                return;
-            }
-        }
-
-        Direction randomDir = findAlternativeDirection();
-        if (randomDir != null) {
-            currentDirection = randomDir;
-            x += currentDirection.dx * (BASE_SPEED - 1);
-            y += currentDirection.dy * (BASE_SPEED - 1);
-        }
-    }
-
-    private Direction getNextDirection(int pacmanX, int pacmanY) {
-        double distanceToPacman = getDistance(pacmanX, pacmanY);
+        int distanceToPacman = pathfinder.distance(tileX, tileY, pacmanTileX, pacmanTileY);
 
         switch (type) {
             case TACTIC:
-                return getPathToTarget(pacmanX, pacmanY);
+                return pathfinder.directionTowards(tileX, tileY, pacmanTileX, pacmanTileY);
 
             case HUNTER:
-                Direction pacmanDir = gameWindow.getPacman().getCurrentDirection();
-                int targetX = pacmanX + (pacmanDir.dx * 4 * SIZE);
-                int targetY = pacmanY + (pacmanDir.dy * 4 * SIZE);
-                return getPathToTarget(targetX, targetY);
+                Direction pacmanDir = pacman.getCurrentDirection();
+                Direction ambush = pathfinder.directionTowards(tileX, tileY,
+                        pacmanTileX + pacmanDir.dx * 4, pacmanTileY + pacmanDir.dy * 4);
+                return ambush != null ? ambush : pathfinder.directionTowards(tileX, tileY, pacmanTileX, pacmanTileY);
 
             case SCOUT:
-                if (distanceToPacman < 8 * SIZE) {
-                    return getPathToTarget(pacmanX, pacmanY);
+                if (distanceToPacman < 8) {
+                    return pathfinder.directionTowards(tileX, tileY, pacmanTileX, pacmanTileY);
                 } else {
                     return findAlternativeDirection();
                 }
 
             case TRICKSTER:
-                if (distanceToPacman < 6 * SIZE) {
+                if (distanceToPacman < 6) {
                     // Убегаем в противоположном направлении
-                    return getPathToTarget(
-                            x - (pacmanX - x),
-                            y - (pacmanY - y)
-                    );
-                } else if (distanceToPacman < 12 * SIZE) {
-                    return getPathToTarget(pacmanX, pacmanY);
+                    return pathfinder.directionAway(tileX, tileY, pacmanTileX, pacmanTileY);
+                } else if (distanceToPacman < 12) {
+                    return pathfinder.directionTowards(tileX, tileY, pacmanTileX, pacmanTileY);
                 }
                 return findAlternativeDirection();
 
@@ -314,11 +281,15 @@ public class Ghost {
 
     private Direction findAlternativeDirection() {
 
-        List<Direction> directions = new ArrayList<>();
-        for (Direction dir : Direction.values()) {
-            directions.add(dir);
+        // The same swaps and random draws as Collections.shuffle on a list of the directions.
+        Direction[] directions = candidates;
+        System.arraycopy(DIRECTIONS, 0, directions, 0, DIRECTIONS.length);
+        for (int i = directions.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Direction swap = directions[i];
+            directions[i] = directions[j];
+            directions[j] = swap;
         }
-        Collections.shuffle(directions, random);
 
         for (Direction dir : directions) {
             int newX = x + (dir.dx * BASE_SPEED);
@@ -331,94 +302,17 @@ public class Ghost {
         return null;
     }
 
-    private Direction getPathToTarget(int targetX, int targetY) {
-        List<Direction> possibleDirections = new ArrayList<>();
-        double minDistance = Double.MAX_VALUE;
-        Direction bestDirection = null;
-
-
-        for (Direction dir : Direction.values()) {
-            int newX = x + (dir.dx * BASE_SPEED);
-            int newY = y + (dir.dy * BASE_SPEED);
-
-            if (canMove(newX, newY) && !willCollideWithOtherGhosts(newX, newY)) {
-                double distance = getDistance(newX, newY, targetX, targetY);
-                if (distance < minDistance) {
-                    minDistance = distance;
-                    bestDirection = dir;
-                }
-                possibleDirections.add(dir);
-            }
-        }
-
-
-        if (bestDirection != null) {
-            return bestDirection;
-        }
-
-
-        return possibleDirections.isEmpty() ? null :
-                possibleDirections.get(random.nextInt(possibleDirections.size()));
-    }
-
+    // The occupancy grid still holds this ghost at its current position while it decides.
     private boolean willCollideWithOtherGhosts(int newX, int newY) {
-        Rectangle newBounds = new Rectangle(newX, newY, SIZE, SIZE);
-        for (Ghost other : gameWindow.getGhosts()) {
-            if (other != this) {
-                Rectangle otherBounds = new Rectangle(other.getX(), other.getY(), SIZE, SIZE);
-                if (newBounds.intersects(otherBounds)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return simulation.getOccupancy().isOccupiedByGhostExcept(newX, newY, x, y);
     }
 
     private boolean canMove(int newX, int newY) {
-
-        int leftTile = newX / SIZE;
-        int rightTile = (newX + SIZE - 1) / SIZE;
-        int topTile = newY / SIZE;
-        int bottomTile = (newY + SIZE - 1) / SIZE;
-
-
-        int buffer = 2;
-        leftTile = (newX + buffer) / SIZE;
-        rightTile = (newX + SIZE - 1 - buffer) / SIZE;
-        topTile = (newY + buffer) / SIZE;
-        bottomTile = (newY + SIZE - 1 - buffer) / SIZE;
-
-
-        if (isWall(leftTile, topTile) || isWall(rightTile, topTile) ||
-            isWall(leftTile, bottomTile) || isWall(rightTile, bottomTile)) {
-            return false;
-        }
-
-        Rectangle newBounds = new Rectangle(newX, newY, SIZE, SIZE);
-        for (Ghost other : gameWindow.getGhosts()) {
-            if (other != this) {
-                Rectangle otherBounds = new Rectangle(other.getX(), other.getY(), SIZE, SIZE);
-                if (newBounds.intersects(otherBounds)) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
+        return !simulation.getOccupancy().isBlockedExcept(newX, newY, x, y);
     }
 
     private boolean isWall(int tileX, int tileY) {
-        return tileX >= 0 && tileX < maze[0].length &&
-                tileY >= 0 && tileY < maze.length &&
-                maze[tileY][tileX] == MazeGenerator.WALL;
-    }
-
-    private double getDistance(int x1, int y1, int x2, int y2) {
-        return Math.sqrt(Math.pow(x2 - x1, 2) + Math.pow(y2 - y1, 2));
-    }
-
-    private double getDistance(int targetX, int targetY) {
-        return getDistance(x, y, targetX, targetY);
+        return simulation.getOccupancy().isWall(tileX, tileY);
     }
 
     public boolean intersects(Pacman pacman) {
@@ -434,6 +328,8 @@ public class Ghost {
     public void respawn() {
         x = startX;
         y = startY;
+        prevX = x;
+        prevY = y;
         isVulnerable = false;
     }
 
@@ -445,6 +341,26 @@ public class Ghost {
         return y;
     }
 
+    public GhostType getType() {
+        return type;
+    }
+
+    public int getPrevX() {
+        return prevX;
+    }
+
+    public int getPrevY() {
+        return prevY;
+    }
+
+    public Direction getCurrentDirection() {
+        return currentDirection;
+    }
+
+    public boolean isVulnerable() {
+        return isVulnerable;
+    }
+
     public void freeze() {
         this.isFrozen = true;
     }
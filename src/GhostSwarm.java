@@ -0,0 +1,300 @@
+import java.util.Arrays;
+import java.util.Random;
+
+// Swarm mode: thousands of ghosts kept in primitive arrays rather than Ghost objects. Swarm
+// ghosts move from tile centre to tile centre at a speed that divides the cell size, so they
+// only pick a direction on a centre, from a precomputed mask of open exits. At a junction each
+// either follows the distance field to Pacman, which the whole swarm shares, or takes a random
+// exit. They pass through each other; only walls stop them.
+//
+// The shared field is rebuilt into a spare buffer a bounded number of cells per tick while the
+// ghosts keep steering by the last finished one, so a large board never costs a whole
+// breadth-first search in one tick.
+public class GhostSwarm {
+    private static final int CELL = GameSimulation.CELL_SIZE;
+    private static final int SPEED = 3;
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {-1, 1, 0, 0};
+    private static final int[] OPPOSITE = {1, 0, 3, 2};
+    private static final int NO_DIRECTION = -1;
+    private static final int FIELD_CELLS_PER_TICK = 8192;
+
+    // Spawn points: one per region of this many tiles square, at least this far from Pacman.
+    private static final int SPAWN_REGION = 8;
+    private static final int MIN_SPAWN_DISTANCE = 8;
+
+    // Per-ghost state bits: vulnerable, ghost type (for colour), chance out of 256 to pursue.
+    private static final int VULNERABLE = 1;
+    private static final int TYPE_SHIFT = 1;
+    private static final int TYPE_MASK = 3;
+    private static final int PURSUIT_SHIFT = 8;
+    private static final int MIN_PURSUIT = 64;
+    private static final int PURSUIT_RANGE = 160;
+
+    private final int width;
+    private final byte[] exits;
+    private final int[] spawns;
+    private final int count;
+
+    private final int[] x;
+    private final int[] y;
+    private final int[] prevX;
+    private final int[] prevY;
+    private final byte[] direction;
+    private final int[] state;
+    private final int[] rng;
+    private boolean frozen;
+
+    private int[] field;
+    private int fieldTarget;
+    private int[] building;
+    private int buildingTarget = -1;
+    private final int[] queue;
+    private int head;
+    private int tail;
+
+    public GhostSwarm(Level level, int count, long seed) {
+        Maze maze = level.getMaze();
+        this.width = maze.getWidth();
+        this.count = count;
+        this.exits = level.getPathfinder().getExits();
+        this.spawns = findSpawns(level);
+
+        int cells = exits.length;
+        field = new int[cells];
+        building = new int[cells];
+        queue = new int[cells];
+        int start = maze.getPacmanStartY() * width + maze.getPacmanStartX();
+        startField(start);
+        buildField(cells);
+
+        x = new int[count];
+        y = new int[count];
+        prevX = new int[count];
+        prevY = new int[count];
+        direction = new byte[count];
+        state = new int[count];
+        rng = new int[count];
+
+        Random random = new Random(seed);
+        for (int i = 0; i < count; i++) {
+            int pursuit = MIN_PURSUIT + random.nextInt(PURSUIT_RANGE);
+            state[i] = (i & TYPE_MASK) << TYPE_SHIFT | pursuit << PURSUIT_SHIFT;
+            rng[i] = random.nextInt() | 1;
+            respawn(i);
+        }
+    }
+
+    // The open tile nearest the middle of each region that is far enough from Pacman's start,
+    // so spawns cover the whole board and depend only on the maze.
+    private static int[] findSpawns(Level level) {
+        Maze maze = level.getMaze();
+        int width = maze.getWidth();
+        int height = maze.getHeight();
+        int[] distances = level.getPathfinder().distancesTo(maze.getPacmanStartX(), maze.getPacmanStartY());
+        int[] spawns = new int[((width + SPAWN_REGION - 1) / SPAWN_REGION) * ((height + SPAWN_REGION - 1) / SPAWN_REGION)];
+        int found = 0;
+        for (int top = 0; top < height; top += SPAWN_REGION) {
+            for (int left = 0; left < width; left += SPAWN_REGION) {
+                int centreX = Math.min(width - 1, left + SPAWN_REGION / 2);
+                int centreY = Math.min(height - 1, top + SPAWN_REGION / 2);
+                int best = -1;
+                int bestOffset = Integer.MAX_VALUE;
+                for (int row = top; row < Math.min(height, top + SPAWN_REGION); row++) {
+                    for (int col = left; col < Math.min(width, left + SPAWN_REGION); col++) {
+                        int distance = distances == null ? Pathfinder.UNREACHABLE : distances[row * width + col];
+                        if (distance == Pathfinder.UNREACHABLE || distance < MIN_SPAWN_DISTANCE) continue;
+                        int offset = Math.abs(col - centreX) + Math.abs(row - centreY);
+                        if (offset < bestOffset) {
+                            bestOffset = offset;
+                            best = row * width + col;
+                        }
+                    }
+                }
+                if (best >= 0) {
+                    spawns[found++] = best;
+                }
+            }
+        }
+        if (found == 0) {
+            // Too small a board to keep a distance: fall back to the ghost house.
+            spawns[found++] = maze.getGhostStartCount() > 0
+                    ? maze.getGhostStartY(0) * width + maze.getGhostStartX(0)
+                    : maze.getPacmanStartY() * width + maze.getPacmanStartX();
+        }
+        return Arrays.copyOf(spawns, found);
+    }
+
+    // Ghosts are spread round-robin over the spawn points.
+    public void respawn(int i) {
+        int tile = spawns[i % spawns.length];
+        x[i] = prevX[i] = (tile % width) * CELL;
+        y[i] = prevY[i] = (tile / width) * CELL;
+        direction[i] = NO_DIRECTION;
+        state[i] &= ~VULNERABLE;
+    }
+
+    public void respawnAll() {
+        for (int i = 0; i < count; i++) {
+            respawn(i);
+        }
+    }
+
+    private void startField(int target) {
+        Arrays.fill(building, Pathfinder.UNREACHABLE);
+        building[target] = 0;
+        queue[0] = target;
+        head = 0;
+        tail = 1;
+        buildingTarget = target;
+    }
+
+    // Runs the pending search for at most budget cells; swaps it in when it completes.
+    private void buildField(int budget) {
+        int[] distances = building;
+        int end = head + budget;
+        while (head < tail && head < end) {
+            int current = queue[head++];
+            int next = distances[current] + 1;
+            int open = exits[current];
+            for (int d = 0; d < 4; d++) {
+                if ((open & 1 << d) == 0) continue;
+                int neighbour = current + DX[d] + DY[d] * width;
+                if (distances[neighbour] == Pathfinder.UNREACHABLE) {
+                    distances[neighbour] = next;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        if (head == tail) {
+            building = field;
+            field = distances;
+            fieldTarget = buildingTarget;
+            buildingTarget = -1;
+        }
+    }
+
+    // Steers towards (or, when vulnerable, away from) Pacman's tile.
+    public void move(int pacmanTileX, int pacmanTileY) {
+        int target = pacmanTileY * width + pacmanTileX;
+        if (buildingTarget < 0 && target != fieldTarget && target >= 0 && target < exits.length && exits[target] != 0) {
+            startField(target);
+        }
+        if (buildingTarget >= 0) {
+            buildField(FIELD_CELLS_PER_TICK);
+        }
+
+        int[] distances = field;
+        System.arraycopy(x, 0, prevX, 0, count);
+        System.arraycopy(y, 0, prevY, 0, count);
+        if (frozen) return;
+        for (int i = 0; i < count; i++) {
+            int px = x[i];
+            int py = y[i];
+            if (px % CELL == 0 && py % CELL == 0) {
+                direction[i] = (byte) chooseDirection(i, (py / CELL) * width + px / CELL, distances);
+            }
+            int d = direction[i];
+            if (d != NO_DIRECTION) {
+                x[i] = px + DX[d] * SPEED;
+                y[i] = py + DY[d] * SPEED;
+            }
+        }
+    }
+
+    private int chooseDirection(int i, int tile, int[] distances) {
+        int open = exits[tile];
+        if (open == 0) return NO_DIRECTION;
+        int options = open;
+        if (direction[i] != NO_DIRECTION) {
+            options &= ~(1 << OPPOSITE[direction[i]]);
+            if (options == 0) options = open;
+        }
+
+        int r = nextRandom(i);
+        int s = state[i];
+        if ((r & 0xFF) < (s >>> PURSUIT_SHIFT & 0xFF)) {
+            boolean flee = (s & VULNERABLE) != 0;
+            int best = NO_DIRECTION;
+            int bestDistance = 0;
+            for (int d = 0; d < 4; d++) {
+                if ((options & 1 << d) == 0) continue;
+                int distance = distances[tile + DX[d] + DY[d] * width];
+                if (distance == Pathfinder.UNREACHABLE) continue;
+                if (best == NO_DIRECTION || (flee ? distance > bestDistance : distance < bestDistance)) {
+                    best = d;
+                    bestDistance = distance;
+                }
+            }
+            if (best != NO_DIRECTION) return best;
+        }
+
+        int pick = ((r >>> 8) & 0xFFFF) % Integer.bitCount(options);
+        for (int d = 0; d < 4; d++) {
+            if ((options & 1 << d) != 0 && pick-- == 0) {
+                return d;
+            }
+        }
+        return NO_DIRECTION;
+    }
+
+    // xorshift32, one stream per ghost, so each ghost's choices depend only on its own history.
+    private int nextRandom(int i) {
+        int r = rng[i];
+        r ^= r << 13;
+        r ^= r >>> 17;
+        r ^= r << 5;
+        rng[i] = r;
+        return r;
+    }
+
+    // Index of the first ghost at or after from that overlaps Pacman, or -1.
+    public int findCollision(int pacmanX, int pacmanY, int from) {
+        for (int i = from; i < count; i++) {
+            if (Math.abs(x[i] - pacmanX) < CELL / 2 && Math.abs(y[i] - pacmanY) < CELL / 2) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void setVulnerable(boolean vulnerable) {
+        for (int i = 0; i < count; i++) {
+            state[i] = vulnerable ? state[i] | VULNERABLE : state[i] & ~VULNERABLE;
+        }
+    }
+
+    public void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public boolean isVulnerable(int i) {
+        return (state[i] & VULNERABLE) != 0;
+    }
+
+    // Copies the swarm into a render frame's ghost arrays, starting at the given slot.
+    void copyTo(RenderFrame frame, int offset) {
+        System.arraycopy(x, 0, frame.ghostX, offset, count);
+        System.arraycopy(y, 0, frame.ghostY, offset, count);
+        System.arraycopy(prevX, 0, frame.ghostPrevX, offset, count);
+        System.arraycopy(prevY, 0, frame.ghostPrevY, offset, count);
+        for (int i = 0; i < count; i++) {
+            int d = direction[i];
+            frame.ghostDirection[offset + i] = (byte) (d == NO_DIRECTION ? Direction.LEFT.ordinal() : d);
+            frame.ghostType[offset + i] = (byte) (state[i] >>> TYPE_SHIFT & TYPE_MASK);
+            frame.ghostVulnerable[offset + i] = (state[i] & VULNERABLE) != 0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class HeadlessRunner {
+    public static void main(String[] args) {
+        int width = 25;
+        int height = 25;
+        int games = 10;
+        int levels = Replay.DEFAULT_LEVELS;
+        int swarm = Replay.DEFAULT_SWARM;
+        long maxTicks = 60L * 60 * GameSimulation.TICKS_PER_SECOND;
+        Path replayFile = null;
+        Path recordFile = null;
+        Path perfFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--size" -> {
+                    String[] parts = args[++i].toLowerCase().split("x");
+                    width = Integer.parseInt(parts[0]);
+                    height = Integer.parseInt(parts[1]);
+                }
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--levels" -> levels = Integer.parseInt(args[++i]);
+                case "--swarm" -> swarm = Integer.parseInt(args[++i]);
+                case "--max-ticks" -> maxTicks = Long.parseLong(args[++i]);
+                case "--replay" -> replayFile = Paths.get(args[++i]);
+                case "--record" -> recordFile = Paths.get(args[++i]);
+                case "--perf" -> perfFile = Paths.get(args[++i]);
+                default -> {
+                    System.err.println("Usage: HeadlessRunner [--size WxH] [--games N] [--levels N] [--swarm N] [--max-ticks N]"
+                            + " [--replay FILE] [--record FILE] [--perf FILE]");
+                    System.exit(2);
+                }
+            }
+        }
+
+        Replay loadedReplay = null;
+        if (replayFile != null) {
+            try {
+                loadedReplay = Replay.read(replayFile);
+            } catch (IOException e) {
+                System.err.println("Error to load replay: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+
+        PerfMonitor perf = new PerfMonitor();
+        perf.setEnabled(perfFile != null);
+        Random random = new Random();
+        long totalTicks = 0;
+        long totalNanos = 0;
+        int wins = 0;
+
+        for (int game = 0; game < games; game++) {
+            // A replay re-runs the same recorded session every time; otherwise the bot plays a fresh game.
+            Replay replay = loadedReplay != null ? loadedReplay : Replay.create(width, height, levels, swarm);
+            GameSimulation simulation = replay.createSimulation();
+            simulation.setPerfMonitor(perf);
+            if (loadedReplay != null) {
+                simulation.setInputSource(replay.playback());
+            } else {
+                simulation.setInputSource(replay.recording(new BotInput(random)));
+            }
+            long endTick = loadedReplay != null ? Math.min(maxTicks, replay.getEndTick()) : maxTicks;
+
+            long start = System.nanoTime();
+            while (!simulation.isFinished() && simulation.getTickCount() < endTick) {
+                simulation.tick();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (recordFile != null && loadedReplay == null) {
+                replay.setEndTick(simulation.getTickCount());
+                try {
+                    replay.write(recordFile);
+                } catch (IOException e) {
+                    System.err.println("Error to save replay: " + e.getMessage());
+                }
+            }
+
+            totalTicks += simulation.getTickCount();
+            totalNanos += elapsed;
+            if (simulation.isWon()) wins++;
+
+            System.out.printf("game %d: %s level=%d score=%d lives=%d ticks=%d pelletsLeft=%d%n",
+                    game + 1,
+                    simulation.isWon() ? "won" : simulation.isFinished() ? "lost" : "timeout",
+                    simulation.getLevel().getNumber(), simulation.getScore(), simulation.getLives(), simulation.getTickCount(),
+                    simulation.getMaze().remainingPellets());
+        }
+
+        System.out.printf("%d games, %d wins, %d ticks in %.1f ms (%.1f ticks/ms)%n",
+                games, wins, totalTicks, totalNanos / 1e6,
+                totalNanos > 0 ? totalTicks / (totalNanos / 1e6) : 0.0);
+
+        if (perfFile != null) {
+            for (String line : perf.summaryLines()) {
+                System.out.println(line);
+            }
+            try {
+                perf.export(perfFile);
+            } catch (IOException e) {
+                System.err.println("Error to export performance data: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -1,57 +1,231 @@
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import javax.swing.*;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class HighScore {
-    private static final String SCORES_FILE = "highscores.dat";
-    private static List<Score> scores = new ArrayList<>();
+    private static final String SCORES_FILE = "highscores.bin";
+    private static final String LEGACY_SCORES_FILE = "highscores.dat";
+    private static final int MAX_SCORES_PER_BOARD = 10000;
+    private static final int COMPACTION_THRESHOLD = 1000;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long FLUSH_TIMEOUT_MILLIS = 2000;
+    private static final long ENQUEUE_TIMEOUT_MILLIS = 100;
+    private static final Score SHUTDOWN = new Score("", 0);
 
-    static {
-        loadScores();
+    private static final HighScoreLog log = new HighScoreLog(Paths.get(SCORES_FILE));
+    private static final BlockingQueue<Score> pending = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final CountDownLatch loaded = new CountDownLatch(1);
+    private static final Leaderboard leaderboard = new Leaderboard(MAX_SCORES_PER_BOARD);
+    // On the leaderboard but not yet appended to the log; compaction leaves these to their batch.
+    private static final Set<Score> unwritten = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Some leaderboard scores missed their append; the next batch compacts to save them.
+    private static boolean unsaved;
+    private static Thread writer;
+
+    // Starts the writer thread, which loads the table (migrating the legacy file if needed) and
+    // then does all file writes; callers never touch the disk. Call early so the first query does
+    // not wait; queries start it themselves otherwise.
+    public static synchronized void start() {
+        if (writer != null) return;
+        writer = new Thread(HighScore::runWriter, "HighScoreWriter");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(HighScore::flush, "HighScoreFlush"));
     }
 
-    public static void addScore(String name, int score) {
-        scores.add(new Score(name, score));
-        Collections.sort(scores);
+    public static String boardOf(int width, int height) {
+        return width + "x" + height;
+    }
 
-        if (scores.size() > 10) {
-            scores = scores.subList(0, 10);
+    // Records the score and returns its rank on the board.
+    public static int addScore(String name, int score, int boardWidth, int boardHeight, long elapsedMillis) {
+        Score entry = new Score(name, score, boardWidth, boardHeight, elapsedMillis, System.currentTimeMillis());
+        awaitLoaded();
+        int rank;
+        synchronized (HighScore.class) {
+            rank = leaderboard.add(entry);
+            unwritten.add(entry);
         }
-        
+        // Called on the EDT: wait only briefly for a full queue. A score the writer cannot take
+        // stays on the leaderboard and is saved by the next compaction instead.
+        boolean queued = false;
         try {
-            saveScores();
-        } catch (IOException e) {
-            showError("Error to save record", e);
+            queued = pending.offer(entry, ENQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queued) {
+            synchronized (HighScore.class) {
+                unwritten.remove(entry);
+                unsaved = true;
+            }
+            showError("Error to save record", new IOException("the high score writer is not keeping up"));
         }
+        return rank;
     }
 
-    public static List<Score> getScores() {
-        return new ArrayList<>(scores);
+    public static int rankOf(String board, int score) {
+        awaitLoaded();
+        synchronized (HighScore.class) {
+            return leaderboard.rankOf(board, score);
+        }
     }
 
-    private static void loadScores() {
-        File file = new File(SCORES_FILE);
-        if (!file.exists()) {
-            return;
+    public static List<Score> getScores(String board, int limit) {
+        awaitLoaded();
+        synchronized (HighScore.class) {
+            return leaderboard.top(board, limit);
+        }
+    }
+
+    public static List<String> getBoards() {
+        awaitLoaded();
+        synchronized (HighScore.class) {
+            return leaderboard.getBoards();
+        }
+    }
+
+    private static void awaitLoaded() {
+        start();
+        try {
+            loaded.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runWriter() {
+        try {
+            loadScores();
+        } finally {
+            // Callers waiting for the table must not hang if loading fails.
+            loaded.countDown();
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(file))) {
-            scores = (List<Score>) ois.readObject();
-        } catch (IOException e) {
+        List<Score> batch = new ArrayList<>();
+        try {
+            while (true) {
+                batch.add(pending.take());
+                pending.drainTo(batch);
+                boolean shutdown = batch.remove(SHUTDOWN);
+                writeBatch(batch);
+                batch.clear();
+                if (shutdown) return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Everything queued since the last write goes out with a single fsync.
+    private static void writeBatch(List<Score> batch) {
+        synchronized (HighScore.class) {
+            if (batch.isEmpty() && !unsaved) return;
+        }
+        GameEvents.HighScoreWrite event = new GameEvents.HighScoreWrite();
+        event.begin();
+        // A failed batch stays on the leaderboard and goes out with the next compaction; one bad
+        // batch must not end the writer.
+        boolean appended = false;
+        try {
+            log.append(batch);
+            appended = true;
+        } catch (IOException | RuntimeException e) {
+            showError("Error to save record", e);
+        }
+        List<Score> retained = null;
+        synchronized (HighScore.class) {
+            for (Score score : batch) {
+                unwritten.remove(score);
+            }
+            unsaved |= !appended;
+            if (unsaved || log.getRecordCount() > leaderboard.size() + COMPACTION_THRESHOLD) {
+                unsaved = false;
+                retained = leaderboard.all();
+                retained.removeIf(unwritten::contains);
+            }
+        }
+        if (retained != null) {
+            try {
+                log.compact(retained);
+                event.compacted = true;
+            } catch (IOException | RuntimeException e) {
+                synchronized (HighScore.class) {
+                    unsaved = true;
+                }
+                showError("Error to save record", e);
+            }
+        }
+        event.records = batch.size();
+        event.commit();
+    }
+
+    // Bounded, so exit does not hang when the writer is stuck behind a full queue.
+    private static void flush() {
+        try {
+            if (pending.offer(SHUTDOWN, FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                writer.join(FLUSH_TIMEOUT_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void loadScores() {
+        GameEvents.HighScoreLoad event = new GameEvents.HighScoreLoad();
+        event.begin();
+        try {
+            if (!log.exists()) {
+                event.migrated = migrateLegacyScores();
+            }
+            synchronized (HighScore.class) {
+                log.load(leaderboard::add);
+            }
+            if (log.isOutdated()) {
+                List<Score> retained;
+                synchronized (HighScore.class) {
+                    retained = leaderboard.all();
+                }
+                log.compact(retained);
+            }
+        } catch (IOException | RuntimeException e) {
             showError("error to load record", e);
-            scores = new ArrayList<>();
-        } catch (ClassNotFoundException e) {
-            showError("error format record", e);
-            scores = new ArrayList<>();
         }
+        event.path = SCORES_FILE;
+        event.records = log.getRecordCount();
+        event.commit();
     }
 
-    private static void saveScores() throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(SCORES_FILE))) {
-            oos.writeObject(scores);
+    // One-time import of the old serialized table; the old file is kept as a backup.
+    private static boolean migrateLegacyScores() throws IOException {
+        Path legacy = Paths.get(LEGACY_SCORES_FILE);
+        if (!Files.exists(legacy)) {
+            return false;
+        }
+
+        List<Score> legacyScores;
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(legacy.toFile()))) {
+            legacyScores = new ArrayList<>((List<Score>) ois.readObject());
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            showError("error format record", e);
+            return false;
         }
+        Collections.sort(legacyScores);
+        log.compact(legacyScores);
+        Files.move(legacy, legacy.resolveSibling(LEGACY_SCORES_FILE + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+        return true;
     }
 
     private static void showError(String message, Exception e) {
@@ -67,12 +241,26 @@ public class HighScore {
 
     public static class Score implements Serializable, Comparable<Score> {
         private static final long serialVersionUID = 1L;
+        private static final String UNKNOWN_BOARD = "unknown";
         private final String name;
         private final int score;
+        private final int boardWidth;
+        private final int boardHeight;
+        private final long elapsedMillis;
+        private final long timestamp;
 
+        // Scores from before board sizes were recorded.
         public Score(String name, int score) {
+            this(name, score, 0, 0, 0, 0);
+        }
+
+        public Score(String name, int score, int boardWidth, int boardHeight, long elapsedMillis, long timestamp) {
             this.name = name;
             this.score = score;
+            this.boardWidth = boardWidth;
+            this.boardHeight = boardHeight;
+            this.elapsedMillis = elapsedMillis;
+            this.timestamp = timestamp;
         }
 
         @Override
@@ -82,7 +270,11 @@ public class HighScore {
 
         @Override
         public String toString() {
-            return name + ": " + score;
+            if (elapsedMillis <= 0) {
+                return name + ": " + score;
+            }
+            long seconds = elapsedMillis / 1000;
+            return String.format("%s: %d (%d:%02d)", name, score, seconds / 60, seconds % 60);
         }
 
         public String getName() {
@@ -92,5 +284,25 @@ public class HighScore {
         public int getScore() {
             return score;
         }
+
+        public String getBoard() {
+            return boardWidth > 0 ? boardOf(boardWidth, boardHeight) : UNKNOWN_BOARD;
+        }
+
+        public int getBoardWidth() {
+            return boardWidth;
+        }
+
+        public int getBoardHeight() {
+            return boardHeight;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,203 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Append-only score log: a versioned header followed by length-prefixed, CRC32-checked records.
+public class HighScoreLog {
+    private static final int MAGIC = 0x504D4853; // "PMHS"
+    private static final short VERSION = 2;
+    private static final int HEADER_BYTES = 6;
+    private static final int MAX_NAME_BYTES = 1024;
+    // v1: score, name length, name. v2 adds board width/height, elapsed millis and a timestamp.
+    private static final int V1_FIXED_BYTES = 6;
+    private static final int V2_FIXED_BYTES = 22;
+    private static final int MAX_PAYLOAD_BYTES = V2_FIXED_BYTES + MAX_NAME_BYTES;
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+
+    private final Path path;
+    private int recordCount;
+    private boolean outdated;
+
+    public HighScoreLog(Path path) {
+        this.path = path;
+    }
+
+    // Streams every valid record to `sink`. A torn or corrupt tail is cut off; a v1 log is
+    // reported through isOutdated so the caller can rewrite it with compact. A log whose header
+    // is torn or unreadable is moved aside, so the next append starts a new one.
+    public void load(Consumer<HighScore.Score> sink) throws IOException {
+        recordCount = 0;
+        outdated = false;
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        long validBytes;
+        long fileBytes = Files.size(path);
+        if (fileBytes < HEADER_BYTES) {
+            // A crash during the first append can leave part of the header behind.
+            System.err.println("High score log " + path + " has a torn header, starting a new log");
+            Files.delete(path);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), READ_BUFFER_BYTES))) {
+            int magic = in.readInt();
+            short version = in.readShort();
+            if (magic != MAGIC || (version != 1 && version != VERSION)) {
+                validBytes = -1;
+            } else {
+                outdated = version != VERSION;
+                validBytes = readRecords(in, version, fileBytes, sink);
+            }
+        }
+
+        if (validBytes < 0) {
+            Path aside = path.resolveSibling(path.getFileName() + ".unreadable");
+            Files.move(path, aside, StandardCopyOption.REPLACE_EXISTING);
+            System.err.println("High score log " + path + " is not readable, moved it to " + aside
+                    + " and starting a new log");
+        } else if (validBytes < fileBytes) {
+            System.err.println("High score log " + path + " has a corrupt tail, truncating "
+                    + (fileBytes - validBytes) + " bytes");
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+                channel.force(true);
+            }
+        }
+    }
+
+    // Returns the length of the valid prefix of the file, header included.
+    private long readRecords(DataInputStream in, short version, long fileBytes, Consumer<HighScore.Score> sink)
+            throws IOException {
+        int fixedBytes = version == 1 ? V1_FIXED_BYTES : V2_FIXED_BYTES;
+        long validBytes = HEADER_BYTES;
+
+        byte[] payload = new byte[MAX_PAYLOAD_BYTES];
+        ByteBuffer fields = ByteBuffer.wrap(payload);
+        CRC32 crc = new CRC32();
+        while (validBytes + 4 <= fileBytes) {
+            int length = in.readInt();
+            if (length < fixedBytes || length > MAX_PAYLOAD_BYTES || validBytes + 8 + length > fileBytes) {
+                break;
+            }
+            in.readFully(payload, 0, length);
+            int checksum = in.readInt();
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            validBytes += 8 + length;
+            recordCount++;
+            sink.accept(version == 1 ? decodeV1(fields, length) : decode(fields, length));
+        }
+        return validBytes;
+    }
+
+    // Appends the whole batch and syncs once.
+    public void append(List<HighScore.Score> batch) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            if (channel.size() < HEADER_BYTES) {
+                // New file, or the torn header of one that was never loaded.
+                channel.truncate(0);
+                writeFully(channel, header());
+            }
+            for (HighScore.Score score : batch) {
+                writeFully(channel, encode(score));
+            }
+            channel.force(false);
+        }
+        recordCount += batch.size();
+    }
+
+    // Rewrites the log with only the retained scores, then atomically swaps it in.
+    public void compact(List<HighScore.Score> retained) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header());
+            for (HighScore.Score score : retained) {
+                writeFully(channel, encode(score));
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        recordCount = retained.size();
+    }
+
+    public boolean exists() {
+        return Files.exists(path);
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public boolean isOutdated() {
+        return outdated;
+    }
+
+    private static ByteBuffer header() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+        buffer.putInt(MAGIC).putShort(VERSION).flip();
+        return buffer;
+    }
+
+    private static ByteBuffer encode(HighScore.Score score) {
+        byte[] name = score.getName().getBytes(StandardCharsets.UTF_8);
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+        int length = V2_FIXED_BYTES + nameLength;
+
+        ByteBuffer buffer = ByteBuffer.allocate(8 + length);
+        buffer.putInt(length);
+        buffer.putInt(score.getScore());
+        buffer.putShort((short) score.getBoardWidth());
+        buffer.putShort((short) score.getBoardHeight());
+        buffer.putInt((int) Math.min(Integer.MAX_VALUE, score.getElapsedMillis()));
+        buffer.putLong(score.getTimestamp());
+        buffer.putShort((short) nameLength);
+        buffer.put(name, 0, nameLength);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 4, length);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static HighScore.Score decode(ByteBuffer fields, int length) {
+        int score = fields.getInt(0);
+        int width = fields.getShort(4) & 0xFFFF;
+        int height = fields.getShort(6) & 0xFFFF;
+        int elapsedMillis = fields.getInt(8);
+        long timestamp = fields.getLong(12);
+        String name = decodeName(fields, 20, length);
+        return new HighScore.Score(name, score, width, height, elapsedMillis, timestamp);
+    }
+
+    private static HighScore.Score decodeV1(ByteBuffer fields, int length) {
+        return new HighScore.Score(decodeName(fields, 4, length), fields.getInt(0));
+    }
+
+    private static String decodeName(ByteBuffer fields, int offset, int length) {
+        int nameLength = fields.getShort(offset) & 0xFFFF;
+        return new String(fields.array(), offset + 2, Math.min(nameLength, length - offset - 2), StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
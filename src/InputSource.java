@@ -0,0 +1,4 @@
+public interface InputSource {
+    // Called at the start of every tick; returns the direction to steer towards, or null to keep the current one.
+    Direction nextDirection(GameSimulation simulation);
+}
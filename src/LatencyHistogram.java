@@ -0,0 +1,75 @@
+import java.util.Arrays;
+
+// Log-linear histogram of nanosecond durations: 16 sub-buckets per power of two, so any
+// recorded value is reported within about 6%. Fixed size, no allocation when recording.
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts[indexOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    // Upper bound of the bucket holding the given percentile (0-100).
+    public long percentile(double percentile) {
+        if (count == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            seen += counts[index];
+            if (seen >= target) {
+                return Math.min(max, upperBound(index));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return SUB_BUCKETS + shift * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
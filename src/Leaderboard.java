@@ -0,0 +1,57 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Rankings per board size. Each board keeps at most `capacity` scores; the lowest drop off.
+public class Leaderboard {
+    private final Map<String, RankedScores> boards = new HashMap<>();
+    private final int capacity;
+    private int size;
+
+    public Leaderboard(int capacity) {
+        this.capacity = capacity;
+    }
+
+    // Returns the score's rank on its board.
+    public int add(HighScore.Score score) {
+        RankedScores ranked = boards.computeIfAbsent(score.getBoard(), board -> new RankedScores());
+        int rank = ranked.insert(score);
+        size++;
+        if (ranked.size() > capacity) {
+            ranked.removeLowest();
+            size--;
+        }
+        return rank;
+    }
+
+    public int rankOf(String board, int points) {
+        RankedScores ranked = boards.get(board);
+        return ranked == null ? 1 : ranked.rankOf(points);
+    }
+
+    public List<HighScore.Score> top(String board, int limit) {
+        RankedScores ranked = boards.get(board);
+        return ranked == null ? new ArrayList<>() : ranked.top(limit);
+    }
+
+    public List<String> getBoards() {
+        List<String> result = new ArrayList<>(boards.keySet());
+        Collections.sort(result);
+        return result;
+    }
+
+    // Every retained score, board by board in rank order.
+    public List<HighScore.Score> all() {
+        List<HighScore.Score> result = new ArrayList<>(size);
+        for (String board : getBoards()) {
+            result.addAll(boards.get(board).top(capacity));
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+}
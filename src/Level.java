@@ -0,0 +1,40 @@
+// One board and everything the simulation derives from it that can be built before it is played:
+// the maze with its pellets and spawn points, the wall occupancy grid and the pathfinder. Display
+// state such as the maze layers is kept by the renderer.
+public class Level {
+    private final int number;
+    private final Maze maze;
+    private final OccupancyGrid occupancy;
+    private final Pathfinder pathfinder;
+
+    public Level(int number, Maze maze) {
+        this.number = number;
+        this.maze = maze;
+        this.occupancy = new OccupancyGrid(maze, GameSimulation.CELL_SIZE);
+        this.pathfinder = new Pathfinder(maze);
+    }
+
+    // Does the first-use work now, on the calling thread, so the level starts without a hitch:
+    // the distance field towards Pacman's start.
+    void prepare() {
+        int x = maze.getPacmanStartX();
+        int y = maze.getPacmanStartY();
+        pathfinder.distance(x, y, x, y);
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public Maze getMaze() {
+        return maze;
+    }
+
+    public OccupancyGrid getOccupancy() {
+        return occupancy;
+    }
+
+    public Pathfinder getPathfinder() {
+        return pathfinder;
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// The levels of one game, all the same size. Each maze comes from a seed derived from the game's
+// maze seed, so a replay rebuilds the same boards. For display, each level is built on a
+// background thread while the one before it is played, and handed to the display there too.
+public class Levels {
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+    private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "LevelBuilder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int width;
+    private final int height;
+    private final long mazeSeed;
+    private final int count;
+    // Prepares display state for each level as it is built; null when nothing is displayed.
+    private final Consumer<Level> display;
+
+    private CompletableFuture<Level> next;
+    private int nextNumber;
+    private volatile boolean closed;
+
+    public Levels(int width, int height, long mazeSeed, int count, Consumer<Level> display) {
+        this.width = width;
+        this.height = height;
+        this.mazeSeed = mazeSeed;
+        this.count = count;
+        this.display = display;
+    }
+
+    // Level 1 uses the maze seed itself, as single-level replays did.
+    public static long seedOf(long mazeSeed, int number) {
+        return mazeSeed + (number - 1) * SEED_STEP;
+    }
+
+    // The given level, or null after the last one. Waits only if the background build of that
+    // level has not finished yet. If that build failed, for example out of memory while the
+    // previous level was still held, it is retried here.
+    public Level get(int number) {
+        if (number < 1 || number > count) return null;
+        // Joined outside the lock, so close() on the EDT never waits for a slow build.
+        CompletableFuture<Level> prebuilt;
+        synchronized (this) {
+            prebuilt = nextNumber == number ? next : null;
+            next = null;
+        }
+        if (prebuilt != null) {
+            try {
+                return prebuilt.join();
+            } catch (CompletionException | CancellationException e) {
+                System.err.println("Error to build level " + number + " in the background: "
+                        + (e.getCause() != null ? e.getCause() : e));
+            }
+        }
+        return build(number);
+    }
+
+    // Starts building the level after the one now played, for display only. Call once the game
+    // has let go of the level before, so no more than two are held at a time.
+    public synchronized void buildAhead(int played) {
+        if (display == null || closed || played >= count) return;
+        int upcoming = played + 1;
+        nextNumber = upcoming;
+        next = CompletableFuture.supplyAsync(() -> build(upcoming), BUILDER);
+    }
+
+    // For a game that is over or abandoned: a build not yet started is dropped, and one in
+    // progress skips the display work and is discarded.
+    public synchronized void close() {
+        closed = true;
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+
+    private Level build(int number) {
+        Maze maze = MazeGenerator.getMaze(width, height, new Random(seedOf(mazeSeed, number)));
+        Level level = new Level(number, maze);
+        level.prepare();
+        if (display != null && !closed) {
+            display.accept(level);
+        }
+        return level;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
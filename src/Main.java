@@ -1,10 +1,42 @@
 import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 public class Main {
+    // Usage: Main [--replay FILE [--headless]]
     public static void main(String[] args) {
+        if (args.length >= 2 && args[0].equals("--replay")) {
+            if (args.length > 2 && args[2].equals("--headless")) {
+                HeadlessRunner.main(new String[]{"--replay", args[1], "--games", "1"});
+            } else {
+                playReplay(Paths.get(args[1]));
+            }
+            return;
+        }
+
+        ResourceManager.mark("main entered");
+        SoundManager.start();
+        HighScore.start();
         SwingUtilities.invokeLater(() -> {
             MainMenu menu = new MainMenu();
+            ResourceManager.mark("menu constructed");
             menu.setVisible(true);
+            ResourceManager.mark("menu visible");
         });
     }
-}
\ No newline at end of file
+
+    private static void playReplay(Path file) {
+        Replay replay;
+        try {
+            replay = Replay.read(file);
+        } catch (IOException e) {
+            System.err.println("Error to load replay: " + e.getMessage());
+            return;
+        }
+        SoundManager.start();
+        CompletableFuture<GameWindow.PreparedGame> game = GameWindow.prepare(replay);
+        SwingUtilities.invokeLater(() -> GameWindow.open(replay, game, true, new MainMenu()));
+    }
+}
@@ -4,16 +4,17 @@ import javax.swing.plaf.basic.BasicComboBoxUI;
 import javax.swing.plaf.basic.BasicComboBoxRenderer;
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class MainMenu extends JFrame {
     private static final Color PACMAN_YELLOW = Color.YELLOW;
     private static final Color BACKGROUND_COLOR = Color.BLACK;
     private static final Color BUTTON_COLOR = new Color(33, 33, 222);
     private static final Color BUTTON_TEXT_COLOR = new Color(255, 255, 255);
+    private static final String CUSTOM_SIZE = "Custom...";
+    private static final String FONT_PATH = "PressStart2P-Regular.ttf";
+    private static final int HIGH_SCORES_SHOWN = 10;
 
     private Font titleFont;
     private Font buttonFont;
@@ -27,6 +28,11 @@ public class MainMenu extends JFrame {
     private JComboBox<String> sizeSelector;
     private JComboBox<ThemeManager.Theme> themeSelector;
 
+    // A game for the selected size, built in the background while the menu is open.
+    private String preparedSize;
+    private Replay preparedReplay;
+    private CompletableFuture<GameWindow.PreparedGame> preparedGame;
+
     public MainMenu() {
         setTitle("Pacman Game");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -40,34 +46,32 @@ public class MainMenu extends JFrame {
         setLocationRelativeTo(null);
     }
 
+    // Starts with system fonts and switches to the arcade font once the background load finishes.
     private void loadFonts() {
-        try {
-            String path = "resources/PressStart2P-Regular.ttf";
-            File fontFile = new File(path);
-            if (!fontFile.exists()) {
-                System.err.println("File font didn`t find throw the path " + fontFile.getAbsolutePath());
-                throw new IOException("File font didn`t find");
-            }
-
-            Font customFont = Font.createFont(Font.TRUETYPE_FONT, fontFile);
-
-            GraphicsEnvironment ge = GraphicsEnvironment.getLocalGraphicsEnvironment();
-            ge.registerFont(customFont);
+        titleFont = new Font("Arial", Font.BOLD, 48);
+        buttonFont = new Font("Arial", Font.BOLD, 18);
+        subtitleFont = new Font("Arial", Font.PLAIN, 14);
+        menuFont = new Font("Arial", Font.PLAIN, 14);
 
+        ResourceManager.font(FONT_PATH).thenAccept(customFont -> SwingUtilities.invokeLater(() -> {
             titleFont = customFont.deriveFont(Font.BOLD, 48f);
             buttonFont = customFont.deriveFont(Font.PLAIN, 16f);
             subtitleFont = customFont.deriveFont(Font.PLAIN, 14f);
             menuFont = customFont.deriveFont(Font.PLAIN, 14f);
+            updateFonts();
+        }));
+    }
 
-        } catch (Exception e) {
-            System.err.println("error to load font: " + e.getMessage());
-            System.err.println("Current directory: " + new File(".").getAbsolutePath());
-            e.printStackTrace();
-            titleFont = new Font("Arial", Font.BOLD, 48);
-            buttonFont = new Font("Arial", Font.BOLD, 18);
-            subtitleFont = new Font("Arial", Font.PLAIN, 14);
-            menuFont = new Font("Arial", Font.PLAIN, 14);
+    private void updateFonts() {
+        for (Component comp : mainPanel.getComponents()) {
+            if (comp instanceof JLabel) {
+                comp.setFont(titleFont);
+            } else if (comp instanceof JButton || comp instanceof JComboBox) {
+                comp.setFont(menuFont);
+            }
         }
+        mainPanel.revalidate();
+        mainPanel.repaint();
     }
 
     private void styleComboBox(JComboBox<?> comboBox) {
@@ -135,9 +139,12 @@ public class MainMenu extends JFrame {
         sizeSelector = new JComboBox<>(new String[]{
                 "Small (15x15)",
                 "Mid (20x20)",
-                "Big (25x25)"
+                "Big (25x25)",
+                "Huge (51x51)",
+                CUSTOM_SIZE
         });
         styleComboBox(sizeSelector);
+        sizeSelector.addActionListener(e -> prepareGame((String) sizeSelector.getSelectedItem()));
         gbc.gridy = 1;
         mainPanel.add(sizeSelector, gbc);
 
@@ -250,10 +257,16 @@ public class MainMenu extends JFrame {
         titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
 
         DefaultListModel<String> listModel = new DefaultListModel<>();
-        List<HighScore.Score> scores = HighScore.getScores();
-        for (HighScore.Score score : scores) {
-            listModel.addElement(score.toString());
+        JComboBox<String> boardSelector = new JComboBox<>(HighScore.getBoards().toArray(new String[0]));
+        styleComboBox(boardSelector);
+        String selectedSize = (String) sizeSelector.getSelectedItem();
+        for (int i = 0; i < boardSelector.getItemCount(); i++) {
+            if (selectedSize != null && selectedSize.contains("(" + boardSelector.getItemAt(i) + ")")) {
+                boardSelector.setSelectedIndex(i);
+            }
         }
+        boardSelector.addActionListener(e -> fillHighScores(listModel, (String) boardSelector.getSelectedItem()));
+        fillHighScores(listModel, (String) boardSelector.getSelectedItem());
         
         JList<String> scoresList = new JList<>(listModel);
         scoresList.setFont(buttonFont);
@@ -294,7 +307,12 @@ public class MainMenu extends JFrame {
         JButton closeButton = createStyledButton("Close");
         closeButton.addActionListener(e -> highScoresFrame.dispose());
 
-        mainPanel.add(titleLabel, BorderLayout.NORTH);
+        JPanel headerPanel = new JPanel(new BorderLayout(0, 10));
+        headerPanel.setBackground(BACKGROUND_COLOR);
+        headerPanel.add(titleLabel, BorderLayout.NORTH);
+        headerPanel.add(boardSelector, BorderLayout.SOUTH);
+
+        mainPanel.add(headerPanel, BorderLayout.NORTH);
         mainPanel.add(scrollPane, BorderLayout.CENTER);
         mainPanel.add(closeButton, BorderLayout.SOUTH);
         
@@ -305,27 +323,96 @@ public class MainMenu extends JFrame {
     }
 
 
+    private void fillHighScores(DefaultListModel<String> listModel, String board) {
+        listModel.clear();
+        if (board == null) return;
+        List<HighScore.Score> scores = HighScore.getScores(board, HIGH_SCORES_SHOWN);
+        for (int i = 0; i < scores.size(); i++) {
+            listModel.addElement((i + 1) + ". " + scores.get(i));
+        }
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        // The theme may have been switched during the game.
+        if (visible && themeSelector != null && themeSelector.getSelectedItem() != ThemeManager.getCurrentTheme()) {
+            themeSelector.setSelectedItem(ThemeManager.getCurrentTheme());
+        }
+        if (visible && sizeSelector != null) {
+            prepareGame((String) sizeSelector.getSelectedItem());
+        }
+    }
+
+    private void prepareGame(String boardSize) {
+        if (boardSize == null || CUSTOM_SIZE.equals(boardSize) || boardSize.equals(preparedSize)) {
+            return;
+        }
+        discardPreparedGame();
+        preparedSize = boardSize;
+        preparedReplay = Replay.create(boardSize);
+        preparedGame = GameWindow.prepare(preparedReplay);
+    }
+
+    // A prepared game that will not be played stops building levels as soon as it is ready.
+    private void discardPreparedGame() {
+        if (preparedGame != null) {
+            preparedGame.thenAccept(GameWindow.PreparedGame::discard);
+        }
+        preparedSize = null;
+        preparedReplay = null;
+        preparedGame = null;
+    }
+
+    // Uses the game prepared for this size if there is one; otherwise the window opens as soon
+    // as a new one is built.
     private void startGame(String boardSize) {
         this.setVisible(false);
 
-
-        SwingUtilities.invokeLater(() -> {
-            GameWindow gameWindow = new GameWindow(boardSize, this);
-            gameWindow.setVisible(true);
-        });
+        if (boardSize.equals(preparedSize)) {
+            Replay replay = preparedReplay;
+            CompletableFuture<GameWindow.PreparedGame> game = preparedGame;
+            preparedSize = null;
+            preparedReplay = null;
+            preparedGame = null;
+            GameWindow.open(replay, game, false, this);
+        } else {
+            discardPreparedGame();
+            Replay replay = Replay.create(boardSize);
+            GameWindow.open(replay, GameWindow.prepare(replay), false, this);
+        }
     }
 
     private void startNewGame() {
         String selectedSize = (String) sizeSelector.getSelectedItem();
+        if (CUSTOM_SIZE.equals(selectedSize)) {
+            selectedSize = askCustomSize();
+        }
         if (selectedSize != null) {
+            startGame(selectedSize);
+        }
+    }
 
-            setVisible(false);
-
-            SwingUtilities.invokeLater(() -> {
-                GameWindow gameWindow = new GameWindow(selectedSize, this);
-                gameWindow.setVisible(true);
-            });
+    private String askCustomSize() {
+        String input = JOptionPane.showInputDialog(this,
+                "Board size (width x height, " + MazeGenerator.MIN_SIZE + "-" + MazeGenerator.MAX_SIZE + "):",
+                "41x31");
+        if (input == null) {
+            return null;
+        }
+        String[] parts = input.toLowerCase().split("x");
+        try {
+            int width = Integer.parseInt(parts[0].trim());
+            int height = Integer.parseInt(parts[parts.length - 1].trim());
+            if (parts.length == 2 && width >= MazeGenerator.MIN_SIZE && width <= MazeGenerator.MAX_SIZE
+                    && height >= MazeGenerator.MIN_SIZE && height <= MazeGenerator.MAX_SIZE) {
+                return "Custom (" + width + "x" + height + ")";
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error message
         }
+        JOptionPane.showMessageDialog(this, "Invalid board size: " + input);
+        return null;
     }
 
     private JButton createStyledButton(String text) {
@@ -0,0 +1,199 @@
+import java.util.Arrays;
+
+public class Maze {
+    public static final int NONE = 0;
+    public static final int PELLET = 1;
+    public static final int POWER_PELLET = 2;
+
+    private final int width;
+    private final int height;
+    private final long[] walls;
+    private final long[] pellets;
+    private final long[] powerPellets;
+    private final long[] spawns;
+    private int remainingPellets = 0;
+    // Append-only log of eaten cells (y * width + x), so renderers can patch just what changed.
+    private int[] eatenCells = new int[0];
+    private int eatenCount = 0;
+
+    private int pacmanStart = -1;
+    private int[] ghostStarts = new int[0];
+
+    public Maze(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int words = (width * height + 63) >>> 6;
+        this.walls = new long[words];
+        this.pellets = new long[words];
+        this.powerPellets = new long[words];
+        this.spawns = new long[words];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public boolean isWall(int x, int y) {
+        return inBounds(x, y) && get(walls, y * width + x);
+    }
+
+    public boolean isPellet(int x, int y) {
+        return inBounds(x, y) && get(pellets, y * width + x);
+    }
+
+    public boolean isPowerPellet(int x, int y) {
+        return inBounds(x, y) && get(powerPellets, y * width + x);
+    }
+
+    // An open cell with nothing on it: no wall, pellet or spawn marker.
+    public boolean isEmpty(int x, int y) {
+        if (!inBounds(x, y)) return false;
+        int index = y * width + x;
+        return !get(walls, index) && !get(pellets, index) && !get(powerPellets, index) && !get(spawns, index);
+    }
+
+    // Removes whatever pellet is on the cell and reports which kind it was.
+    public int popPellet(int x, int y) {
+        if (!inBounds(x, y)) return NONE;
+        int index = y * width + x;
+        if (get(pellets, index)) {
+            clear(pellets, index);
+            logEaten(index);
+            return PELLET;
+        }
+        if (get(powerPellets, index)) {
+            clear(powerPellets, index);
+            logEaten(index);
+            return POWER_PELLET;
+        }
+        return NONE;
+    }
+
+    private void logEaten(int index) {
+        remainingPellets--;
+        if (eatenCount == eatenCells.length) {
+            eatenCells = Arrays.copyOf(eatenCells, Math.max(16, eatenCount * 2));
+        }
+        eatenCells[eatenCount++] = index;
+    }
+
+    public int remainingPellets() {
+        return remainingPellets;
+    }
+
+    public int getEatenCount() {
+        return eatenCount;
+    }
+
+    public int getEatenX(int i) {
+        return eatenCells[i] % width;
+    }
+
+    public int getEatenY(int i) {
+        return eatenCells[i] / width;
+    }
+
+    public int getPacmanStartX() {
+        return pacmanStart < 0 ? 1 : pacmanStart % width;
+    }
+
+    public int getPacmanStartY() {
+        return pacmanStart < 0 ? 1 : pacmanStart / width;
+    }
+
+    public int getGhostStartCount() {
+        return ghostStarts.length;
+    }
+
+    public int getGhostStartX(int i) {
+        return ghostStarts[i] % width;
+    }
+
+    public int getGhostStartY(int i) {
+        return ghostStarts[i] / width;
+    }
+
+    void fillWalls() {
+        Arrays.fill(walls, -1L);
+    }
+
+    void setWall(int x, int y, boolean wall) {
+        int index = y * width + x;
+        if (wall) {
+            set(walls, index);
+        } else {
+            clear(walls, index);
+        }
+    }
+
+    void setPellet(int x, int y, int kind) {
+        int index = y * width + x;
+        clear(pellets, index);
+        clear(powerPellets, index);
+        if (kind == PELLET) {
+            set(pellets, index);
+        } else if (kind == POWER_PELLET) {
+            set(powerPellets, index);
+        }
+    }
+
+    // Fills every open cell with a pellet; spawn markers and power pellets are applied afterwards.
+    void fillPellets() {
+        for (int i = 0; i < pellets.length; i++) {
+            pellets[i] = ~walls[i];
+        }
+        trimLastWord(pellets);
+    }
+
+    void markPacmanStart(int x, int y) {
+        setPellet(x, y, NONE);
+        set(spawns, y * width + x);
+        pacmanStart = y * width + x;
+    }
+
+    void markGhostStart(int x, int y) {
+        setPellet(x, y, NONE);
+        set(spawns, y * width + x);
+        int[] starts = Arrays.copyOf(ghostStarts, ghostStarts.length + 1);
+        starts[ghostStarts.length] = y * width + x;
+        Arrays.sort(starts);
+        ghostStarts = starts;
+    }
+
+    void finish() {
+        trimLastWord(walls);
+        int count = 0;
+        for (int i = 0; i < pellets.length; i++) {
+            count += Long.bitCount(pellets[i]) + Long.bitCount(powerPellets[i]);
+        }
+        remainingPellets = count;
+        eatenCells = new int[count];
+    }
+
+    private void trimLastWord(long[] bits) {
+        int used = (width * height) & 63;
+        if (used != 0) {
+            bits[bits.length - 1] &= (1L << used) - 1;
+        }
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    private static boolean get(long[] bits, int index) {
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private static void clear(long[] bits, int index) {
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
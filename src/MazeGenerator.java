@@ -1,170 +1,175 @@
 import java.util.Random;
-import java.util.Stack;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class MazeGenerator {
-    public static final int WALL = 1;
-    public static final int PATH = 0;
-    public static final int PELLET = 2;
-    public static final int POWER_PELLET = 3;
-    public static final int PACMAN_START = 4;
-    public static final int GHOST_START = 5;
+    public static final int MIN_SIZE = 5;
+    public static final int MAX_SIZE = 1001;
 
-    private static final Random random = new Random();
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+)\\s*x\\s*(\\d+)");
 
-    public static int[][] getMaze(String size) {
+    private static final int[] DX = {0, 0, 1, -1};
+    private static final int[] DY = {-1, 1, 0, 0};
+
+    public static Maze getMaze(String size) {
+        return getMaze(size, new Random());
+    }
+
+    public static Maze getMaze(String size, Random random) {
+        int[] dimensions = parseSize(size);
+        return getMaze(dimensions[0], dimensions[1], random);
+    }
+
+    // Menu size labels and "WxH" strings to {width, height}; anything else is the small board.
+    public static int[] parseSize(String size) {
         int boardSize = switch (size) {
             case "Small (15x15)" -> 15;
             case "Mid (20x20)" -> 20;
             case "Big (25x25)" -> 25;
-            default -> 15;
+            default -> 0;
         };
+        if (boardSize > 0) {
+            return new int[]{boardSize, boardSize};
+        }
 
+        Matcher matcher = SIZE_PATTERN.matcher(size);
+        if (matcher.find()) {
+            return new int[]{Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))};
+        }
+        return new int[]{15, 15};
+    }
 
-        int[][] maze = generateMaze(boardSize);
+    public static Maze getMaze(int width, int height) {
+        return getMaze(width, height, new Random());
+    }
 
+    // The same seed and size always produce the same maze.
+    public static Maze getMaze(int width, int height, Random random) {
+        if (width < MIN_SIZE || height < MIN_SIZE || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Maze size must be between " + MIN_SIZE + " and " + MAX_SIZE
+                    + ", got " + width + "x" + height);
+        }
 
-        addGameElements(maze);
+        GameEvents.MazeGeneration event = new GameEvents.MazeGeneration();
+        event.begin();
 
-        return maze;
-    }
+        Maze maze = new Maze(width, height);
+        generateMaze(maze, random);
 
-    private static int[][] generateMaze(int size) {
 
-        int[][] maze = new int[size][size];
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                maze[i][j] = WALL;
-            }
+        addGameElements(maze, random);
+        maze.finish();
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.pellets = maze.remainingPellets();
+            event.commit();
         }
+        return maze;
+    }
 
+    private static void generateMaze(Maze maze, Random random) {
+        int width = maze.getWidth();
+        int height = maze.getHeight();
 
-        Stack<Point> stack = new Stack<>();
+        maze.fillWalls();
 
+        // Recursive backtracker over odd cells; positions are packed as y * width + x.
+        int[] stack = new int[((width + 1) / 2) * ((height + 1) / 2) + 1];
+        int top = 0;
+        int[] candidates = new int[4];
 
         int startX = 1;
         int startY = 1;
-        maze[startY][startX] = PATH;
-
-        stack.push(new Point(startX, startY));
+        maze.setWall(startX, startY, false);
 
-        while (!stack.empty()) {
-            Point current = stack.peek();
+        stack[top++] = startY * width + startX;
 
+        while (top > 0) {
+            int current = stack[top - 1];
+            int x = current % width;
+            int y = current / width;
 
-            java.util.List<Direction> directions = getPossibleDirections(current, maze);
+            int count = getPossibleDirections(x, y, maze, candidates);
 
-            if (!directions.isEmpty()) {
+            if (count > 0) {
 
-                Direction direction = directions.get(random.nextInt(directions.size()));
+                int direction = candidates[random.nextInt(count)];
 
+                int nextX = x + DX[direction] * 2;
+                int nextY = y + DY[direction] * 2;
 
-                Point next = new Point(
-                        current.x + direction.dx * 2,
-                        current.y + direction.dy * 2
-                );
+                maze.setWall(x + DX[direction], y + DY[direction], false);
+                maze.setWall(nextX, nextY, false);
 
-
-                maze[current.y + direction.dy][current.x + direction.dx] = PATH;
-                maze[next.y][next.x] = PATH;
-
-                stack.push(next);
+                stack[top++] = nextY * width + nextX;
             } else {
-                stack.pop();
+                top--;
             }
         }
-
-        return maze;
     }
 
-    private static void addGameElements(int[][] maze) {
-        int size = maze.length;
+    private static void addGameElements(Maze maze, Random random) {
+        int height = maze.getHeight();
+        int width = maze.getWidth();
 
 
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                if (maze[i][j] == PATH) {
-                    maze[i][j] = PELLET;
-                }
-            }
-        }
+        maze.fillPellets();
 
 
-        if (maze[1][1] != WALL) maze[1][1] = POWER_PELLET;
-        if (maze[1][size-2] != WALL) maze[1][size-2] = POWER_PELLET;
-        if (maze[size-2][1] != WALL) maze[size-2][1] = POWER_PELLET;
-        if (maze[size-2][size-2] != WALL) maze[size-2][size-2] = POWER_PELLET;
+        if (!maze.isWall(1, 1)) maze.setPellet(1, 1, Maze.POWER_PELLET);
+        if (!maze.isWall(width-2, 1)) maze.setPellet(width-2, 1, Maze.POWER_PELLET);
+        if (!maze.isWall(1, height-2)) maze.setPellet(1, height-2, Maze.POWER_PELLET);
+        if (!maze.isWall(width-2, height-2)) maze.setPellet(width-2, height-2, Maze.POWER_PELLET);
 
 
-        Point pacmanStart = findRandomPath(maze);
-        maze[pacmanStart.y][pacmanStart.x] = PACMAN_START;
+        int pacmanStart = findRandomPath(maze, random);
+        maze.markPacmanStart(pacmanStart % width, pacmanStart / width);
 
 
-        int centerX = size / 2;
-        int centerY = size / 2;
+        int centerX = width / 2;
+        int centerY = height / 2;
 
 
         for (int i = centerY - 1; i <= centerY + 1; i++) {
             for (int j = centerX - 1; j <= centerX + 1; j++) {
-                if (maze[i][j] != WALL) {
-                    maze[i][j] = GHOST_START;
+                if (!maze.isWall(j, i)) {
+                    maze.markGhostStart(j, i);
                 }
             }
         }
     }
 
-    private static Point findRandomPath(int[][] maze) {
-        int size = maze.length;
-        Point point;
+    private static int findRandomPath(Maze maze, Random random) {
+        int height = maze.getHeight();
+        int width = maze.getWidth();
+        int x, y;
         do {
-            point = new Point(
-                    random.nextInt(size - 2) + 1,
-                    random.nextInt(size - 2) + 1
-            );
-        } while (maze[point.y][point.x] == WALL);
-        return point;
+            x = random.nextInt(width - 2) + 1;
+            y = random.nextInt(height - 2) + 1;
+        } while (maze.isWall(x, y));
+        return y * width + x;
     }
 
-    private static java.util.List<Direction> getPossibleDirections(Point current, int[][] maze) {
-        java.util.List<Direction> directions = new java.util.ArrayList<>();
-        int size = maze.length;
+    private static int getPossibleDirections(int x, int y, Maze maze, int[] candidates) {
+        int height = maze.getHeight();
+        int width = maze.getWidth();
+        int count = 0;
 
-        for (Direction dir : Direction.values()) {
-            int newX = current.x + dir.dx * 2;
-            int newY = current.y + dir.dy * 2;
+        for (int dir = 0; dir < 4; dir++) {
+            int newX = x + DX[dir] * 2;
+            int newY = y + DY[dir] * 2;
 
-            if (newX > 0 && newX < size - 1 &&
-                    newY > 0 && newY < size - 1 &&
-                    maze[newY][newX] == WALL &&
-                    maze[current.y + dir.dy][current.x + dir.dx] == WALL) {
-                directions.add(dir);
+            if (newX > 0 && newX < width - 1 &&
+                    newY > 0 && newY < height - 1 &&
+                    maze.isWall(newX, newY) &&
+                    maze.isWall(x + DX[dir], y + DY[dir])) {
+                candidates[count++] = dir;
             }
         }
 
-        return directions;
-    }
-
-    private static class Point {
-        final int x;
-        final int y;
-
-        Point(int x, int y) {
-            this.x = x;
-            this.y = y;
-        }
-    }
-
-    private enum Direction {
-        NORTH(0, -1),
-        SOUTH(0, 1),
-        EAST(1, 0),
-        WEST(-1, 0);
-
-        final int dx;
-        final int dy;
-
-        Direction(int dx, int dy) {
-            this.dx = dx;
-            this.dy = dy;
-        }
+        return count;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,123 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+// Must be created before the game starts: the board is rendered from the pellets present
+// then, and patched from the maze's eaten-cell log up to the count a render frame carries, so
+// drawing never reads pellet state the simulation thread is changing. Walls and pellets share one
+// byte raster of ThemeManager palette slots, so a theme change only swaps the color model. The
+// raster is rendered at the size the board is displayed, which on large boards is a pixel or two
+// per cell, and stretched over the board's game coordinates when drawn.
+public class MazeLayers {
+    private final Maze maze;
+    private final int cellSize;
+    private final int width;
+    private final int height;
+    private final int boardWidth;
+    private final int boardHeight;
+    private final byte[] initialPellets;
+
+    private WritableRaster raster;
+    private int[] emptyCell;
+    private ThemeManager.Theme shownTheme;
+    private BufferedImage image;
+    private int patchedCount;
+
+    // cellSize is in display pixels, boardCellSize in the game coordinates the board is drawn in.
+    public MazeLayers(Maze maze, int boardCellSize, int cellSize) {
+        this.maze = maze;
+        this.cellSize = cellSize;
+        this.width = maze.getWidth() * cellSize;
+        this.height = maze.getHeight() * cellSize;
+        this.boardWidth = maze.getWidth() * boardCellSize;
+        this.boardHeight = maze.getHeight() * boardCellSize;
+        this.initialPellets = new byte[maze.getWidth() * maze.getHeight()];
+        for (int row = 0; row < maze.getHeight(); row++) {
+            for (int col = 0; col < maze.getWidth(); col++) {
+                if (maze.isPellet(col, row)) {
+                    initialPellets[row * maze.getWidth() + col] = Maze.PELLET;
+                } else if (maze.isPowerPellet(col, row)) {
+                    initialPellets[row * maze.getWidth() + col] = Maze.POWER_PELLET;
+                }
+            }
+        }
+    }
+
+    // Rasterizes the board ahead of the first draw, independent of the theme. Any thread may call
+    // it before the layers are handed to the renderer.
+    public void prepare() {
+        raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE, width, height, 1, null);
+        int[] wall = cellOf(ThemeManager.WALL);
+        emptyCell = cellOf(ThemeManager.BACKGROUND);
+        int[] pellet = pelletCell(cellSize/3, cellSize/3);
+        int[] powerPellet = pelletCell(cellSize/4, cellSize/2);
+        for (int row = 0; row < maze.getHeight(); row++) {
+            for (int col = 0; col < maze.getWidth(); col++) {
+                int kind = initialPellets[row * maze.getWidth() + col];
+                int[] cell = maze.isWall(col, row) ? wall
+                        : kind == Maze.PELLET ? pellet
+                        : kind == Maze.POWER_PELLET ? powerPellet
+                        : null;
+                if (cell != null) {
+                    raster.setPixels(col * cellSize, row * cellSize, cellSize, cellSize, cell);
+                }
+            }
+        }
+        patchedCount = 0;
+        shownTheme = null;
+    }
+
+    public void draw(Graphics g, int eatenCount) {
+        if (raster == null) {
+            prepare();
+        }
+        ThemeManager.Theme theme = ThemeManager.getCurrentTheme();
+        if (theme != shownTheme) {
+            image = new BufferedImage(theme.palette, raster, false, null);
+            shownTheme = theme;
+        }
+        patchPellets(eatenCount);
+
+        if (width == boardWidth) {
+            g.drawImage(image, 0, 0, null);
+        } else {
+            g.drawImage(image, 0, 0, boardWidth, boardHeight, null);
+        }
+    }
+
+    private int[] cellOf(int slot) {
+        int[] cell = new int[cellSize * cellSize];
+        Arrays.fill(cell, slot);
+        return cell;
+    }
+
+    // The pellet shape, drawn once with Java2D and copied into every cell that holds one. In cells
+    // of a few pixels it becomes a single dot.
+    private int[] pelletCell(int offset, int size) {
+        BufferedImage mask = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_BYTE_BINARY);
+        Graphics2D g = mask.createGraphics();
+        g.setColor(Color.WHITE);
+        if (size < 3) {
+            g.fillRect(offset, offset, Math.max(1, size), Math.max(1, size));
+        } else {
+            g.fillOval(offset, offset, size, size);
+        }
+        g.dispose();
+        int[] cell = mask.getRaster().getPixels(0, 0, cellSize, cellSize, (int[]) null);
+        for (int i = 0; i < cell.length; i++) {
+            cell[i] = cell[i] != 0 ? ThemeManager.PELLET : ThemeManager.BACKGROUND;
+        }
+        return cell;
+    }
+
+    private void patchPellets(int eatenCount) {
+        if (patchedCount >= eatenCount) return;
+        for (; patchedCount < eatenCount; patchedCount++) {
+            raster.setPixels(maze.getEatenX(patchedCount) * cellSize, maze.getEatenY(patchedCount) * cellSize,
+                    cellSize, cellSize, emptyCell);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+// Walls and ghosts per maze tile. A ghost occupies every tile its sprite box touches (less a
+// small buffer), so ghosts block each other by tile rather than by exact pixel overlap.
+public class OccupancyGrid {
+    private static final int WALL = 1 << 24;
+    private static final int BUFFER = 2;
+
+    private final int[] cells;
+    private final int width;
+    private final int height;
+    private final int cellSize;
+
+    public OccupancyGrid(Maze maze, int cellSize) {
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.cellSize = cellSize;
+        this.cells = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                if (maze.isWall(col, row)) {
+                    cells[row * width + col] = WALL;
+                }
+            }
+        }
+    }
+
+    public void add(int x, int y) {
+        update(x, y, 1);
+    }
+
+    public void remove(int x, int y) {
+        update(x, y, -1);
+    }
+
+    private void update(int x, int y, int delta) {
+        int left = (x + BUFFER) / cellSize;
+        int right = (x + cellSize - 1 - BUFFER) / cellSize;
+        int top = (y + BUFFER) / cellSize;
+        int bottom = (y + cellSize - 1 - BUFFER) / cellSize;
+        for (int row = top; row <= bottom; row++) {
+            for (int col = left; col <= right; col++) {
+                if (inBounds(col, row)) {
+                    cells[row * width + col] += delta;
+                }
+            }
+        }
+    }
+
+    // True if a sprite box at pixel (x, y) would overlap a wall or a registered ghost.
+    public boolean isBlocked(int x, int y) {
+        return query(x, y, -1);
+    }
+
+    // The same checks, ignoring the ghost registered at (selfX, selfY). Ghosts deciding their moves
+    // in parallel each see the grid as it was at the end of the previous tick, themselves excluded.
+    public boolean isBlockedExcept(int x, int y, int selfX, int selfY) {
+        return queryExcept(x, y, selfX, selfY, -1);
+    }
+
+    public boolean isOccupiedByGhostExcept(int x, int y, int selfX, int selfY) {
+        return queryExcept(x, y, selfX, selfY, WALL - 1);
+    }
+
+    private boolean queryExcept(int x, int y, int selfX, int selfY, int mask) {
+        int left = (x + BUFFER) / cellSize;
+        int right = (x + cellSize - 1 - BUFFER) / cellSize;
+        int top = (y + BUFFER) / cellSize;
+        int bottom = (y + cellSize - 1 - BUFFER) / cellSize;
+        if (x + BUFFER < 0 || y + BUFFER < 0 || !inBounds(right, bottom)) {
+            return true;
+        }
+        // The tiles the ghost itself covers, worked out once rather than per corner.
+        int selfLeft = (selfX + BUFFER) / cellSize;
+        int selfRight = (selfX + cellSize - 1 - BUFFER) / cellSize;
+        int selfTop = (selfY + BUFFER) / cellSize;
+        int selfBottom = (selfY + cellSize - 1 - BUFFER) / cellSize;
+        return (cellExcept(left, top, selfLeft, selfRight, selfTop, selfBottom) & mask) != 0
+                || (cellExcept(right, top, selfLeft, selfRight, selfTop, selfBottom) & mask) != 0
+                || (cellExcept(left, bottom, selfLeft, selfRight, selfTop, selfBottom) & mask) != 0
+                || (cellExcept(right, bottom, selfLeft, selfRight, selfTop, selfBottom) & mask) != 0;
+    }
+
+    private int cellExcept(int col, int row, int selfLeft, int selfRight, int selfTop, int selfBottom) {
+        int value = cells[row * width + col];
+        if (col >= selfLeft && col <= selfRight && row >= selfTop && row <= selfBottom) {
+            value--;
+        }
+        return value;
+    }
+
+    private boolean query(int x, int y, int mask) {
+        int left = (x + BUFFER) / cellSize;
+        int right = (x + cellSize - 1 - BUFFER) / cellSize;
+        int top = (y + BUFFER) / cellSize;
+        int bottom = (y + cellSize - 1 - BUFFER) / cellSize;
+        if (x + BUFFER < 0 || y + BUFFER < 0 || !inBounds(right, bottom)) {
+            return true;
+        }
+        return (cells[top * width + left] & mask) != 0
+                || (cells[top * width + right] & mask) != 0
+                || (cells[bottom * width + left] & mask) != 0
+                || (cells[bottom * width + right] & mask) != 0;
+    }
+
+    public boolean isWall(int tileX, int tileY) {
+        return inBounds(tileX, tileY) && (cells[tileY * width + tileX] & WALL) != 0;
+    }
+
+    private boolean inBounds(int tileX, int tileY) {
+        return tileX >= 0 && tileX < width && tileY >= 0 && tileY < height;
+    }
+}
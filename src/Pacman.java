@@ -1,72 +1,34 @@
-import javax.swing.*;
-import java.awt.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-
 public class Pacman {
     private static final int SIZE = 30;
-    private static final int ANIMATION_FRAMES = 4;
+    static final int ANIMATION_FRAMES = 4;
     private static final int BASE_MOVEMENT_SPEED = 4;
-    private static final int FRAME_DELAY = 50;
+    // The mouth advances every 3 ticks, about 50 ms at 60 ticks per second.
+    private static final int TICKS_PER_FRAME = 3;
 
     private int x;
     private int y;
+    private int prevX;
+    private int prevY;
     private Direction currentDirection = Direction.RIGHT;
     private Direction nextDirection = Direction.RIGHT;
-    private final int[][] maze;
-    private int currentFrame = 0;
-    private final AtomicBoolean isMoving = new AtomicBoolean(true);
-    private final GameWindow gameWindow;
-    private final Thread animationThread;
+    private Maze maze;
+    private int animationTicks = 0;
     private double speedMultiplier = 1.0;
-    private Thread speedBoostThread;
 
 
-    public Pacman(GameWindow gameWindow, int[][] maze, int startX, int startY) {
-        this.gameWindow = gameWindow;
+    public Pacman(Maze maze, int startX, int startY) {
         this.maze = maze;
         this.x = startX * SIZE;
         this.y = startY * SIZE;
-
-        animationThread = new Thread(() -> {
-            while (isMoving.get()) {
-                try {
-                    Thread.sleep(FRAME_DELAY);
-                    currentFrame = (currentFrame + 1) % ANIMATION_FRAMES;
-                    gameWindow.repaintGame();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
-            }
-        });
-        animationThread.start();
-    }
-
-    public void draw(Graphics g) {
-        g.setColor(Color.YELLOW);
-        if (currentFrame == 0 || currentFrame == ANIMATION_FRAMES - 1) {
-            g.fillOval(x, y, SIZE, SIZE);
-        } else {
-            int startAngle = 0;
-            switch (currentDirection) {
-                case UP:
-                    startAngle = 90;
-                    break;
-                case DOWN:
-                    startAngle = 270;
-                    break;
-                case LEFT:
-                    startAngle = 180;
-                    break;
-                case RIGHT:
-                    startAngle = 0;
-                    break;
-            }
-            g.fillArc(x, y, SIZE, SIZE, startAngle + 45 - (currentFrame * 5), 270 + (currentFrame * 10));
-        }
+        this.prevX = x;
+        this.prevY = y;
     }
 
     public void move() {
+        prevX = x;
+        prevY = y;
+        // Driven by the simulation clock, so the mouth stops while the game is paused.
+        animationTicks = (animationTicks + 1) % (ANIMATION_FRAMES * TICKS_PER_FRAME);
         int currentSpeed = (int)(BASE_MOVEMENT_SPEED * speedMultiplier);
 
         int nextX = x + (nextDirection.dx * currentSpeed);
@@ -102,7 +64,7 @@ public class Pacman {
         }
     }
 
-    private boolean canMove(int newX, int newY) {
+    boolean canMove(int newX, int newY) {
 
         int leftTile = newX / SIZE;
         int rightTile = (newX + SIZE - 1) / SIZE;
@@ -123,9 +85,7 @@ public class Pacman {
     }
 
     private boolean isWall(int tileX, int tileY) {
-        return tileX >= 0 && tileX < maze[0].length &&
-                tileY >= 0 && tileY < maze.length &&
-                maze[tileY][tileX] == MazeGenerator.WALL;
+        return maze.isWall(tileX, tileY);
     }
 
     public void setDirection(Direction direction) {
@@ -139,6 +99,17 @@ public class Pacman {
     public void setPosition(int x, int y) {
         this.x = x * SIZE;
         this.y = y * SIZE;
+        this.prevX = this.x;
+        this.prevY = this.y;
+    }
+
+    // Moves Pacman onto the next level's maze with the start-of-level state.
+    public void enterMaze(Maze maze, int startX, int startY) {
+        this.maze = maze;
+        setPosition(startX, startY);
+        currentDirection = Direction.RIGHT;
+        nextDirection = Direction.RIGHT;
+        resetSpeed();
     }
 
     public int getX() {
@@ -149,9 +120,16 @@ public class Pacman {
         return y;
     }
 
-    public void stop() {
-        isMoving.set(false);
-        animationThread.interrupt();
+    public int getPrevX() {
+        return prevX;
+    }
+
+    public int getPrevY() {
+        return prevY;
+    }
+
+    public int getAnimationFrame() {
+        return animationTicks / TICKS_PER_FRAME;
     }
 
     public void setSpeedMultiplier(double multiplier) {
@@ -0,0 +1,167 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class Pathfinder {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int MAX_CACHED_CELLS = 4_000_000;
+    private static final int MIN_CACHED_FIELDS = 4;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int UP = 1 << Direction.UP.ordinal();
+    private static final int DOWN = 1 << Direction.DOWN.ordinal();
+    private static final int LEFT = 1 << Direction.LEFT.ordinal();
+    private static final int RIGHT = 1 << Direction.RIGHT.ordinal();
+
+    private final Maze maze;
+    private final int width;
+    private final int height;
+    // Open neighbours of each open tile, one bit per Direction ordinal.
+    private final byte[] exits;
+    private final Map<Integer, int[]> fields;
+
+    public Pathfinder(Maze maze) {
+        this.maze = maze;
+        this.width = maze.getWidth();
+        this.height = maze.getHeight();
+        this.exits = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (!isOpen(x, y)) continue;
+                int mask = 0;
+                for (Direction dir : DIRECTIONS) {
+                    if (isOpen(x + dir.dx, y + dir.dy)) {
+                        mask |= 1 << dir.ordinal();
+                    }
+                }
+                exits[y * width + x] = (byte) mask;
+            }
+        }
+
+        // Distance fields are cached per target tile (least recently used first out), bounded by total size.
+        int maxFields = Math.max(MIN_CACHED_FIELDS, MAX_CACHED_CELLS / (width * height));
+        this.fields = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > maxFields;
+            }
+        };
+    }
+
+    public int distance(int fromX, int fromY, int toX, int toY) {
+        int target = openTile(toX, toY);
+        if (target < 0 || !isOpen(fromX, fromY)) return UNREACHABLE;
+        return field(target)[fromY * width + fromX];
+    }
+
+    // First step of a shortest path from one tile to another, or null when there is none.
+    public Direction directionTowards(int fromX, int fromY, int toX, int toY) {
+        int target = openTile(toX, toY);
+        if (target < 0 || !isOpen(fromX, fromY)) return null;
+        int[] distances = field(target);
+
+        Direction best = null;
+        int bestDistance = distances[fromY * width + fromX];
+        for (Direction dir : DIRECTIONS) {
+            int x = fromX + dir.dx;
+            int y = fromY + dir.dy;
+            if (isOpen(x, y) && distances[y * width + x] < bestDistance) {
+                bestDistance = distances[y * width + x];
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    // The whole distance field to a tile, indexed y * width + x, or null when there is no open
+    // tile near it. Shared with the cache: callers must not modify it.
+    public int[] distancesTo(int toX, int toY) {
+        int target = openTile(toX, toY);
+        return target < 0 ? null : field(target);
+    }
+
+    // Step that increases the path distance from the threat the most, or null when cornered.
+    public Direction directionAway(int fromX, int fromY, int threatX, int threatY) {
+        int threat = openTile(threatX, threatY);
+        if (threat < 0 || !isOpen(fromX, fromY)) return null;
+        int[] distances = field(threat);
+
+        Direction best = null;
+        int bestDistance = distances[fromY * width + fromX];
+        for (Direction dir : DIRECTIONS) {
+            int x = fromX + dir.dx;
+            int y = fromY + dir.dy;
+            if (isOpen(x, y) && distances[y * width + x] != UNREACHABLE && distances[y * width + x] > bestDistance) {
+                bestDistance = distances[y * width + x];
+                best = dir;
+            }
+        }
+        return best;
+    }
+
+    // Safe to call from several threads. A field missing from the cache is computed outside the
+    // lock; two threads may both compute it, with the same result.
+    private int[] field(int target) {
+        int[] distances;
+        synchronized (fields) {
+            distances = fields.get(target);
+        }
+        if (distances == null) {
+            distances = computeField(target);
+            synchronized (fields) {
+                fields.put(target, distances);
+            }
+        }
+        return distances;
+    }
+
+    private int[] computeField(int target) {
+        int[] distances = new int[width * height];
+        int[] queue = new int[width * height];
+        Arrays.fill(distances, UNREACHABLE);
+        distances[target] = 0;
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = target;
+        while (head < tail) {
+            int current = queue[head++];
+            int next = distances[current] + 1;
+            int open = exits[current];
+            if ((open & UP) != 0) tail = visit(distances, queue, tail, current - width, next);
+            if ((open & DOWN) != 0) tail = visit(distances, queue, tail, current + width, next);
+            if ((open & LEFT) != 0) tail = visit(distances, queue, tail, current - 1, next);
+            if ((open & RIGHT) != 0) tail = visit(distances, queue, tail, current + 1, next);
+        }
+        return distances;
+    }
+
+    private static int visit(int[] distances, int[] queue, int tail, int index, int distance) {
+        if (distances[index] == UNREACHABLE) {
+            distances[index] = distance;
+            queue[tail++] = index;
+        }
+        return tail;
+    }
+
+    // Shared, read-only: the open-neighbour mask of every tile, bit n for Direction ordinal n.
+    public byte[] getExits() {
+        return exits;
+    }
+
+    // Clamps a target into the board and nudges it off a wall onto an adjacent open tile.
+    private int openTile(int x, int y) {
+        x = Math.max(0, Math.min(width - 1, x));
+        y = Math.max(0, Math.min(height - 1, y));
+        if (isOpen(x, y)) return y * width + x;
+        for (Direction dir : DIRECTIONS) {
+            if (isOpen(x + dir.dx, y + dir.dy)) {
+                return (y + dir.dy) * width + x + dir.dx;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isOpen(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && !maze.isWall(x, y);
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Per-phase timing and allocation counters, also reported as Flight Recorder events. Each phase
+// must be started and stopped on one thread; other threads may read the numbers for display,
+// which are then only approximate.
+public class PerfMonitor {
+    public enum Phase {
+        TICK("tick", false),
+        INPUT("input", true),
+        SCHEDULER("scheduler", true),
+        PACMAN("pacman.move", true),
+        GHOSTS("moveGhosts", true),
+        COLLISIONS("checkCollisions", true),
+        PAINT("drawGame", false);
+
+        final String label;
+        // Reported to Flight Recorder as pacman.TickPhase; the tick and paint have their own events.
+        final boolean recordedAsTickPhase;
+
+        Phase(String label, boolean recordedAsTickPhase) {
+            this.label = label;
+            this.recordedAsTickPhase = recordedAsTickPhase;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final long[] allocatedBytes = new long[PHASES.length];
+    private final long[] startNanos = new long[PHASES.length];
+    private final long[] startBytes = new long[PHASES.length];
+    private final GameEvents.TickPhase[] phaseEvents = new GameEvents.TickPhase[PHASES.length];
+    private volatile boolean enabled;
+
+    public PerfMonitor() {
+        for (int i = 0; i < PHASES.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void start(Phase phase) {
+        if (phase.recordedAsTickPhase && GameEvents.TICK_PHASE.isEnabled()) {
+            GameEvents.TickPhase event = new GameEvents.TickPhase();
+            event.begin();
+            phaseEvents[phase.ordinal()] = event;
+        }
+        if (!enabled) return;
+        int index = phase.ordinal();
+        startBytes[index] = allocated();
+        startNanos[index] = System.nanoTime();
+    }
+
+    public void stop(Phase phase) {
+        GameEvents.TickPhase event = phaseEvents[phase.ordinal()];
+        if (event != null) {
+            phaseEvents[phase.ordinal()] = null;
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = phase.label;
+                event.commit();
+            }
+        }
+        if (!enabled) return;
+        long end = System.nanoTime();
+        int index = phase.ordinal();
+        if (startNanos[index] == 0) return;
+        histograms[index].record(end - startNanos[index]);
+        allocatedBytes[index] += allocated() - startBytes[index];
+        startNanos[index] = 0;
+    }
+
+    private static long allocated() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    public boolean hasSamples() {
+        for (LatencyHistogram histogram : histograms) {
+            if (histogram.getCount() > 0) return true;
+        }
+        return false;
+    }
+
+    public void reset() {
+        for (int i = 0; i < PHASES.length; i++) {
+            histograms[i].reset();
+            allocatedBytes[i] = 0;
+        }
+    }
+
+    // One line per phase that has samples, for the overlay and console.
+    public List<String> summaryLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.ROOT, "%-16s %8s %8s %8s %9s", "phase (us)", "p50", "p99", "max", "B/call"));
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = histograms[phase.ordinal()];
+            long count = histogram.getCount();
+            if (count == 0) continue;
+            lines.add(String.format(Locale.ROOT, "%-16s %8.1f %8.1f %8.1f %9d", phase.label,
+                    histogram.percentile(50) / 1e3, histogram.percentile(99) / 1e3, histogram.getMax() / 1e3,
+                    allocatedBytes[phase.ordinal()] / count));
+        }
+        return lines;
+    }
+
+    // Writes CSV, or JSON when the file name ends in .json.
+    public void export(Path path) throws IOException {
+        boolean json = path.getFileName().toString().endsWith(".json");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(path))) {
+            if (json) {
+                out.println("{");
+            } else {
+                out.println("phase,count,mean_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns,allocated_bytes");
+            }
+            boolean first = true;
+            for (Phase phase : PHASES) {
+                LatencyHistogram h = histograms[phase.ordinal()];
+                if (h.getCount() == 0) continue;
+                long bytes = allocatedBytes[phase.ordinal()];
+                if (json) {
+                    out.printf(Locale.ROOT, "%s  \"%s\": {\"count\": %d, \"meanNs\": %.1f, \"p50Ns\": %d, \"p90Ns\": %d,"
+                                    + " \"p99Ns\": %d, \"p999Ns\": %d, \"maxNs\": %d, \"allocatedBytes\": %d}",
+                            first ? "" : ",\n", phase.label, h.getCount(), h.getMean(), h.percentile(50),
+                            h.percentile(90), h.percentile(99), h.percentile(99.9), h.getMax(), bytes);
+                } else {
+                    out.printf(Locale.ROOT, "%s,%d,%.1f,%d,%d,%d,%d,%d,%d%n", phase.label, h.getCount(), h.getMean(),
+                            h.percentile(50), h.percentile(90), h.percentile(99), h.percentile(99.9), h.getMax(), bytes);
+                }
+                first = false;
+            }
+            if (json) {
+                out.println();
+                out.println("}");
+            }
+        }
+    }
+}
@@ -1,6 +1,3 @@
-import javax.swing.*;
-import java.awt.*;
-
 public class PowerUp {
     private static final int SIZE = 30;
     private final int x;
@@ -9,16 +6,14 @@ public class PowerUp {
     private boolean isActive = true;
 
     public enum PowerUpType {
-        SPEED("Speed +50%", Color.GREEN),
-        INVINCIBILITY("Invincible", Color.YELLOW),
-        GHOST_FREEZE("Freeze Ghosts", Color.CYAN);
+        SPEED("Speed +50%"),
+        INVINCIBILITY("Invincible"),
+        GHOST_FREEZE("Freeze Ghosts");
 
         final String description;
-        final Color color;
 
-        PowerUpType(String description, Color color) {
+        PowerUpType(String description) {
             this.description = description;
-            this.color = color;
         }
     }
 
@@ -28,54 +23,38 @@ public class PowerUp {
         this.type = type;
     }
 
-    public void draw(Graphics g) {
-        if (!isActive) return;
-        g.setColor(type.color);
-        g.fillOval(x + 5, y + 5, SIZE - 10, SIZE - 10);
-    }
-
     public boolean intersects(Pacman pacman) {
-        Rectangle powerUpBounds = new Rectangle(x, y, SIZE, SIZE);
-        Rectangle pacmanBounds = new Rectangle(pacman.getX(), pacman.getY(), SIZE, SIZE);
-        return powerUpBounds.intersects(pacmanBounds);
+        return pacman.getX() < x + SIZE && x < pacman.getX() + SIZE
+                && pacman.getY() < y + SIZE && y < pacman.getY() + SIZE;
     }
 
-    public void apply(GameWindow gameWindow) {
+    public void apply(GameSimulation simulation) {
         switch (type) {
             case SPEED:
-                Pacman pacman = gameWindow.getPacman();
-                pacman.setSpeedMultiplier(1.5);
-                new Thread(() -> {
-                    try {
-                        Thread.sleep(10000); // 10 секунд
-                        pacman.resetSpeed();
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                }).start();
+                simulation.activateSpeedBoost(1.5, 10000); // 10 секунд
                 break;
             case INVINCIBILITY:
-                gameWindow.activatePowerMode();
+                simulation.activatePowerMode();
                 break;
             case GHOST_FREEZE:
-                for (Ghost ghost : gameWindow.getGhosts()) {
-                    ghost.freeze();
-                }
-                new Thread(() -> {
-                    try {
-                        Thread.sleep(5000); // 5 секунд
-                        for (Ghost ghost : gameWindow.getGhosts()) {
-                            ghost.unfreeze();
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                    }
-                }).start();
+                simulation.freezeGhosts(5000); // 5 секунд
                 break;
         }
     }
 
+    public PowerUpType getType() {
+        return type;
+    }
+
     public boolean isActive() {
         return isActive;
     }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
 }
\ No newline at end of file
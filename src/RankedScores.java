@@ -0,0 +1,124 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+// Order-statistic treap: best score first, equal scores in arrival order. Insert, rank and
+// removal of the lowest entry are O(log n) expected.
+public class RankedScores {
+    private static final class Node {
+        final HighScore.Score score;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(HighScore.Score score, int priority) {
+            this.score = score;
+            this.priority = priority;
+        }
+    }
+
+    private final Random random = new Random();
+    private Node root;
+
+    // Returns the 1-based rank the score was inserted at.
+    public int insert(HighScore.Score score) {
+        Node node = new Node(score, random.nextInt());
+        Node[] parts = split(root, score.getScore());
+        root = merge(merge(parts[0], node), parts[1]);
+        return countAtLeast(score.getScore());
+    }
+
+    // Rank a new score with these points would get; ties go behind the scores already present.
+    public int rankOf(int points) {
+        return countAtLeast(points) + 1;
+    }
+
+    public void removeLowest() {
+        root = removeLast(root);
+    }
+
+    public List<HighScore.Score> top(int limit) {
+        List<HighScore.Score> result = new ArrayList<>(Math.min(limit, size()));
+        Deque<Node> stack = new ArrayDeque<>();
+        Node node = root;
+        while ((node != null || !stack.isEmpty()) && result.size() < limit) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            result.add(node.score);
+            node = node.right;
+        }
+        return result;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    private int countAtLeast(int points) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.score.getScore() >= points) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    // Splits into scores with at least `points` and the rest.
+    private static Node[] split(Node node, int points) {
+        if (node == null) {
+            return new Node[2];
+        }
+        Node[] parts;
+        if (node.score.getScore() >= points) {
+            parts = split(node.right, points);
+            node.right = parts[0];
+            parts[0] = node;
+        } else {
+            parts = split(node.left, points);
+            node.left = parts[1];
+            parts[1] = node;
+        }
+        update(node);
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private static Node removeLast(Node node) {
+        if (node == null) return null;
+        if (node.right == null) return node.left;
+        node.right = removeLast(node.right);
+        update(node);
+        return node;
+    }
+
+    private static void update(Node node) {
+        node.size = size(node.left) + size(node.right) + 1;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+}
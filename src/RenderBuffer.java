@@ -0,0 +1,37 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Triple buffer of render frames between the simulation thread (the only writer) and one render
+// thread. The writer fills its back frame and swaps it into the middle slot; the reader swaps
+// the middle slot out whenever it holds a newer frame. Neither side ever waits for the other.
+public class RenderBuffer {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final RenderFrame[] frames = {new RenderFrame(), new RenderFrame(), new RenderFrame()};
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+    private RenderFrame published;
+
+    // Simulation thread only.
+    public void publish(GameSimulation simulation) {
+        RenderFrame frame = frames[back];
+        frame.capture(simulation);
+        published = frame;
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    // The frame most recently published, for the simulation thread itself. It is never written
+    // again until a newer frame has been published.
+    public RenderFrame getPublished() {
+        return published;
+    }
+
+    // Render thread only: the newest published frame, which stays valid until the next call.
+    public RenderFrame acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX_MASK;
+        }
+        return frames[front];
+    }
+}
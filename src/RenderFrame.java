@@ -0,0 +1,204 @@
+import java.util.Arrays;
+import java.util.List;
+
+// Everything the renderer needs from one tick, copied out by the simulation thread. Frames are
+// pre-allocated and reused through RenderBuffer, so publishing one allocates nothing once the
+// arrays have grown to the ghost and power-up counts.
+public final class RenderFrame {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Ghost.GhostType[] GHOST_TYPES = Ghost.GhostType.values();
+    private static final PowerUp.PowerUpType[] POWER_UP_TYPES = PowerUp.PowerUpType.values();
+
+    long tick;
+    // The board being played; its layers are drawn under the sprites.
+    Level level;
+    int pacmanX;
+    int pacmanY;
+    int pacmanPrevX;
+    int pacmanPrevY;
+    byte pacmanDirection;
+    int pacmanAnimationFrame;
+
+    int ghostCount;
+    int[] ghostX = new int[0];
+    int[] ghostY = new int[0];
+    int[] ghostPrevX = new int[0];
+    int[] ghostPrevY = new int[0];
+    byte[] ghostDirection = new byte[0];
+    byte[] ghostType = new byte[0];
+    boolean[] ghostVulnerable = new boolean[0];
+
+    int powerUpCount;
+    int[] powerUpX = new int[0];
+    int[] powerUpY = new int[0];
+    byte[] powerUpType = new byte[0];
+
+    // Cells eaten so far; entries below this count in the maze's eaten log are final.
+    int eatenCount;
+    int lastEatenX;
+    int lastEatenY;
+    int pelletAnimationFrame;
+
+    void capture(GameSimulation simulation) {
+        tick = simulation.getTickCount();
+        level = simulation.getLevel();
+
+        Pacman pacman = simulation.getPacman();
+        pacmanX = pacman.getX();
+        pacmanY = pacman.getY();
+        pacmanPrevX = pacman.getPrevX();
+        pacmanPrevY = pacman.getPrevY();
+        pacmanDirection = (byte) pacman.getCurrentDirection().ordinal();
+        pacmanAnimationFrame = pacman.getAnimationFrame();
+
+        List<Ghost> ghosts = simulation.getGhosts();
+        GhostSwarm swarm = simulation.getSwarm();
+        ghostCount = ghosts.size() + (swarm != null ? swarm.size() : 0);
+        if (ghostX.length < ghostCount) {
+            growGhosts(ghostCount);
+        }
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost ghost = ghosts.get(i);
+            ghostX[i] = ghost.getX();
+            ghostY[i] = ghost.getY();
+            ghostPrevX[i] = ghost.getPrevX();
+            ghostPrevY[i] = ghost.getPrevY();
+            ghostDirection[i] = (byte) ghost.getCurrentDirection().ordinal();
+            ghostType[i] = (byte) ghost.getType().ordinal();
+            ghostVulnerable[i] = ghost.isVulnerable();
+        }
+        if (swarm != null) {
+            swarm.copyTo(this, ghosts.size());
+        }
+
+        List<PowerUp> powerUps = simulation.getPowerUps();
+        powerUpCount = 0;
+        if (powerUpX.length < powerUps.size()) {
+            growPowerUps(powerUps.size());
+        }
+        for (PowerUp powerUp : powerUps) {
+            if (!powerUp.isActive()) continue;
+            powerUpX[powerUpCount] = powerUp.getX();
+            powerUpY[powerUpCount] = powerUp.getY();
+            powerUpType[powerUpCount] = (byte) powerUp.getType().ordinal();
+            powerUpCount++;
+        }
+
+        eatenCount = simulation.getMaze().getEatenCount();
+        lastEatenX = simulation.getLastEatenX();
+        lastEatenY = simulation.getLastEatenY();
+        pelletAnimationFrame = simulation.getPelletAnimationFrame();
+    }
+
+    private void growGhosts(int capacity) {
+        ghostX = Arrays.copyOf(ghostX, capacity);
+        ghostY = Arrays.copyOf(ghostY, capacity);
+        ghostPrevX = Arrays.copyOf(ghostPrevX, capacity);
+        ghostPrevY = Arrays.copyOf(ghostPrevY, capacity);
+        ghostDirection = Arrays.copyOf(ghostDirection, capacity);
+        ghostType = Arrays.copyOf(ghostType, capacity);
+        ghostVulnerable = Arrays.copyOf(ghostVulnerable, capacity);
+    }
+
+    private void growPowerUps(int capacity) {
+        powerUpX = Arrays.copyOf(powerUpX, capacity);
+        powerUpY = Arrays.copyOf(powerUpY, capacity);
+        powerUpType = Arrays.copyOf(powerUpType, capacity);
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public int getPacmanX() {
+        return pacmanX;
+    }
+
+    public int getPacmanY() {
+        return pacmanY;
+    }
+
+    public int getPacmanPrevX() {
+        return pacmanPrevX;
+    }
+
+    public int getPacmanPrevY() {
+        return pacmanPrevY;
+    }
+
+    public Direction getPacmanDirection() {
+        return DIRECTIONS[pacmanDirection];
+    }
+
+    public int getPacmanAnimationFrame() {
+        return pacmanAnimationFrame;
+    }
+
+    public int getGhostCount() {
+        return ghostCount;
+    }
+
+    public int getGhostX(int i) {
+        return ghostX[i];
+    }
+
+    public int getGhostY(int i) {
+        return ghostY[i];
+    }
+
+    public int getGhostPrevX(int i) {
+        return ghostPrevX[i];
+    }
+
+    public int getGhostPrevY(int i) {
+        return ghostPrevY[i];
+    }
+
+    public Direction getGhostDirection(int i) {
+        return DIRECTIONS[ghostDirection[i]];
+    }
+
+    public Ghost.GhostType getGhostType(int i) {
+        return GHOST_TYPES[ghostType[i]];
+    }
+
+    public boolean isGhostVulnerable(int i) {
+        return ghostVulnerable[i];
+    }
+
+    public int getPowerUpCount() {
+        return powerUpCount;
+    }
+
+    public int getPowerUpX(int i) {
+        return powerUpX[i];
+    }
+
+    public int getPowerUpY(int i) {
+        return powerUpY[i];
+    }
+
+    public PowerUp.PowerUpType getPowerUpType(int i) {
+        return POWER_UP_TYPES[powerUpType[i]];
+    }
+
+    public int getEatenCount() {
+        return eatenCount;
+    }
+
+    public int getLastEatenX() {
+        return lastEatenX;
+    }
+
+    public int getLastEatenY() {
+        return lastEatenY;
+    }
+
+    public int getPelletAnimationFrame() {
+        return pelletAnimationFrame;
+    }
+}
@@ -0,0 +1,202 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+
+// A recorded game: board size, the maze and simulation seeds, and every direction change the
+// simulation applied, stamped with its tick. Replaying the inputs against the same seeds
+// reproduces the game exactly.
+//
+// File format: magic, version, width, height, level count, swarm size, maze seed, simulation
+// seed, end tick, event count, then one varint per event holding (tick delta << 2 | direction
+// ordinal).
+public class Replay {
+    public static final int DEFAULT_LEVELS = Integer.getInteger("pacman.levels", 3);
+    public static final int DEFAULT_SWARM = Integer.getInteger("pacman.swarm", 0);
+    private static final int MAGIC = 0x504D5250; // "PMRP"
+    private static final int VERSION = 1;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final int levels;
+    private final int swarm;
+    private final long mazeSeed;
+    private final long simulationSeed;
+    private long[] eventTicks = new long[64];
+    private byte[] eventDirections = new byte[64];
+    private int eventCount;
+    private long endTick;
+
+    public Replay(int width, int height, int levels, int swarm, long mazeSeed, long simulationSeed) {
+        this.width = width;
+        this.height = height;
+        this.levels = levels;
+        this.swarm = swarm;
+        this.mazeSeed = mazeSeed;
+        this.simulationSeed = simulationSeed;
+    }
+
+    public static Replay create(String size) {
+        int[] dimensions = MazeGenerator.parseSize(size);
+        return create(dimensions[0], dimensions[1]);
+    }
+
+    public static Replay create(int width, int height) {
+        return create(width, height, DEFAULT_LEVELS);
+    }
+
+    public static Replay create(int width, int height, int levels) {
+        return create(width, height, levels, DEFAULT_SWARM);
+    }
+
+    public static Replay create(int width, int height, int levels, int swarm) {
+        Random seeds = new Random();
+        return new Replay(width, height, Math.max(1, Math.min(255, levels)), Math.max(0, swarm),
+                seeds.nextLong(), seeds.nextLong());
+    }
+
+    public GameSimulation createSimulation() {
+        return createSimulation(null);
+    }
+
+    // With a display, levels are built ahead in the background and each is handed to the display
+    // as it is built.
+    public GameSimulation createSimulation(Consumer<Level> display) {
+        return new GameSimulation(new Levels(width, height, mazeSeed, levels, display), simulationSeed, swarm);
+    }
+
+    public void record(long tick, Direction direction) {
+        if (eventCount == eventTicks.length) {
+            eventTicks = Arrays.copyOf(eventTicks, eventCount * 2);
+            eventDirections = Arrays.copyOf(eventDirections, eventCount * 2);
+        }
+        eventTicks[eventCount] = tick;
+        eventDirections[eventCount] = (byte) direction.ordinal();
+        eventCount++;
+        endTick = Math.max(endTick, tick);
+    }
+
+    public void setEndTick(long endTick) {
+        this.endTick = endTick;
+    }
+
+    // Wraps a live input source and records every direction it hands to the simulation.
+    public InputSource recording(InputSource source) {
+        return simulation -> {
+            Direction direction = source.nextDirection(simulation);
+            if (direction != null) {
+                record(simulation.getTickCount(), direction);
+            }
+            return direction;
+        };
+    }
+
+    // Feeds the recorded directions back at the ticks they were applied.
+    public InputSource playback() {
+        int[] next = {0};
+        return simulation -> {
+            long tick = simulation.getTickCount();
+            while (next[0] < eventCount && eventTicks[next[0]] < tick) {
+                next[0]++;
+            }
+            if (next[0] < eventCount && eventTicks[next[0]] == tick) {
+                return DIRECTIONS[eventDirections[next[0]++]];
+            }
+            return null;
+        };
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeShort(width);
+            out.writeShort(height);
+            out.writeByte(levels);
+            out.writeInt(swarm);
+            out.writeLong(mazeSeed);
+            out.writeLong(simulationSeed);
+            out.writeLong(endTick);
+            out.writeInt(eventCount);
+            long previous = 0;
+            for (int i = 0; i < eventCount; i++) {
+                writeVarLong(out, (eventTicks[i] - previous) << 2 | eventDirections[i]);
+                previous = eventTicks[i];
+            }
+        }
+    }
+
+    public static Replay read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a replay file: " + path);
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported replay version " + version);
+            }
+            int width = in.readUnsignedShort();
+            int height = in.readUnsignedShort();
+            int levels = in.readUnsignedByte();
+            int swarm = in.readInt();
+            Replay replay = new Replay(width, height, levels, swarm, in.readLong(), in.readLong());
+            long endTick = in.readLong();
+            int count = in.readInt();
+            long tick = 0;
+            for (int i = 0; i < count; i++) {
+                long value = readVarLong(in);
+                tick += value >>> 2;
+                replay.record(tick, DIRECTIONS[(int) (value & 3)]);
+            }
+            replay.setEndTick(endTick);
+            return replay;
+        }
+    }
+
+    private static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed replay event");
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    public int getSwarm() {
+        return swarm;
+    }
+
+    public long getEndTick() {
+        return endTick;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+}
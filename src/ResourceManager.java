@@ -0,0 +1,95 @@
+import java.awt.*;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Loads fonts and sounds in parallel on background threads. Resources come from the classpath,
+// falling back to the resources/ directory next to the working directory.
+public class ResourceManager {
+    private static final String FILE_ROOT = "resources/";
+    private static final boolean PRINT_TIMINGS = Boolean.getBoolean("pacman.startupTimings");
+    private static final int LOADER_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private static final Map<String, CompletableFuture<?>> resources = new ConcurrentHashMap<>();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(LOADER_THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "ResourceLoader-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+
+    public static CompletableFuture<Font> font(String path) {
+        return load("font " + path, () -> {
+            try (InputStream input = open(path)) {
+                Font font = Font.createFont(Font.TRUETYPE_FONT, input);
+                GraphicsEnvironment.getLocalGraphicsEnvironment().registerFont(font);
+                return font;
+            }
+        });
+    }
+
+    public static CompletableFuture<AudioEngine.Sound> sound(String path) {
+        return load("sound " + path, () -> {
+            try (InputStream input = open(path)) {
+                return AudioEngine.decode(input);
+            }
+        });
+    }
+
+    // Starts loading once per name; later calls share the same future.
+    @SuppressWarnings("unchecked")
+    public static <T> CompletableFuture<T> load(String name, Loader<T> loader) {
+        return (CompletableFuture<T>) resources.computeIfAbsent(name, key -> CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                T value = loader.load();
+                if (PRINT_TIMINGS) {
+                    report(String.format(Locale.ROOT, "%s loaded in %.1f ms on %s",
+                            name, (System.nanoTime() - start) / 1e6, Thread.currentThread().getName()));
+                }
+                return value;
+            } catch (Exception e) {
+                System.err.println("Error to load " + name + ": " + e.getMessage());
+                throw new CompletionException(e);
+            }
+        }, executor));
+    }
+
+    public static InputStream open(String path) throws IOException {
+        InputStream input = ResourceManager.class.getResourceAsStream("/" + path);
+        if (input != null) {
+            return input;
+        }
+        File file = new File(FILE_ROOT + path);
+        if (!file.exists()) {
+            throw new IOException("Cannot find resource " + path + " on the classpath or at " + file.getAbsolutePath());
+        }
+        return new FileInputStream(file);
+    }
+
+    // Records a startup milestone; printed with -Dpacman.startupTimings=true.
+    public static void mark(String milestone) {
+        if (PRINT_TIMINGS) {
+            report(milestone);
+        }
+    }
+
+    private static void report(String event) {
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        System.out.printf(Locale.ROOT, "[startup %5d ms] %s%n", uptime, event);
+    }
+}
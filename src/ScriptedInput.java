@@ -0,0 +1,33 @@
+import java.util.Arrays;
+
+public class ScriptedInput implements InputSource {
+    private long[] ticks = new long[16];
+    private Direction[] directions = new Direction[16];
+    private int size = 0;
+    private int position = 0;
+
+    // Steps must be added in tick order.
+    public ScriptedInput at(long tick, Direction direction) {
+        if (size > 0 && tick < ticks[size - 1]) {
+            throw new IllegalArgumentException("Script ticks must be non-decreasing: " + tick);
+        }
+        if (size == ticks.length) {
+            ticks = Arrays.copyOf(ticks, size * 2);
+            directions = Arrays.copyOf(directions, size * 2);
+        }
+        ticks[size] = tick;
+        directions[size] = direction;
+        size++;
+        return this;
+    }
+
+    @Override
+    public Direction nextDirection(GameSimulation simulation) {
+        long tick = simulation.getTickCount();
+        Direction result = null;
+        while (position < size && ticks[position] <= tick) {
+            result = directions[position++];
+        }
+        return result;
+    }
+}
@@ -1,63 +1,89 @@
-import javax.sound.sampled.*;
-import java.io.File;
-import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 public class SoundManager {
-    private static Clip startGameSound;
-    private static Clip eatPelletSound;
-    private static Clip eatGhostSound;
-    private static Clip deathSound;
-    private static Clip powerUpSound;
+    private static final int MAX_VOICES = 16;
 
-    static {
-        try {
+    private static volatile Sounds sounds;
+
+    // The audio output and every effect, loading in the background from construction on.
+    private static final class Sounds {
+        final CompletableFuture<AudioEngine> engine =
+                ResourceManager.load("audio output", () -> new AudioEngine(MAX_VOICES));
+        final CompletableFuture<AudioEngine.Sound> startGame = ResourceManager.sound("sounds/sound1.wav");
+        final CompletableFuture<AudioEngine.Sound> eatPellet = ResourceManager.sound("sounds/sound2.wav");
+        final CompletableFuture<AudioEngine.Sound> eatGhost = ResourceManager.sound("sounds/sound3.wav");
+        final CompletableFuture<AudioEngine.Sound> death = ResourceManager.sound("sounds/sounddie.wav");
+        final CompletableFuture<AudioEngine.Sound> powerUp = ResourceManager.sound("sounds/soundlosing.wav");
+    }
 
-            startGameSound = loadSound("resources/sounds/sound1.wav");
-            eatPelletSound = loadSound("resources/sounds/sound2.wav");
-            eatGhostSound = loadSound("resources/sounds/sound3.wav");
-            deathSound = loadSound("resources/sounds/sounddie.wav");
-            powerUpSound = loadSound("resources/sounds/soundlosing.wav");
-        } catch (Exception e) {
-            System.err.println("Error download sound: " + e.getMessage());
+    // Starts loading the audio output and sounds in the background; sounds played before they
+    // have loaded are skipped.
+    public static synchronized void start() {
+        if (sounds == null) {
+            sounds = new Sounds();
         }
     }
 
-    private static Clip loadSound(String path) throws IOException, UnsupportedAudioFileException, LineUnavailableException {
-        File soundFile = new File(path);
-        if (!soundFile.exists()) {
-            throw new IOException("Cannot find sound: " + path);
+    // Called when a game starts; gives slow loads a bounded chance to finish before the first sound.
+    public static void awaitLoaded(long timeoutMillis) {
+        start();
+        Sounds loading = sounds;
+        try {
+            CompletableFuture.allOf(loading.engine, loading.startGame, loading.eatPellet, loading.eatGhost,
+                    loading.death, loading.powerUp).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // play() skips whatever is still missing
         }
-        AudioInputStream ais = AudioSystem.getAudioInputStream(soundFile);
-        Clip clip = AudioSystem.getClip();
-        clip.open(ais);
-        return clip;
     }
 
     public static void playStartGame() {
-        playSound(startGameSound);
+        playSound("startGame", loaded -> loaded.startGame);
     }
 
     public static void playEatPellet() {
-        playSound(eatPelletSound);
+        playSound("eatPellet", loaded -> loaded.eatPellet);
     }
 
 
     public static void playEatGhost() {
-        playSound(eatGhostSound);
+        playSound("eatGhost", loaded -> loaded.eatGhost);
     }
 
     public static void playDeath() {
-        playSound(deathSound);
+        playSound("death", loaded -> loaded.death);
     }
 
     public static void playPowerUp() {
-        playSound(powerUpSound);
+        playSound("powerUp", loaded -> loaded.powerUp);
     }
 
-    private static void playSound(Clip clip) {
-        if (clip != null) {
-            clip.setFramePosition(0);
-            clip.start();
+    // Non-blocking; a sound that has not started or finished loading yet is skipped.
+    private static void playSound(String name, Function<Sounds, CompletableFuture<AudioEngine.Sound>> sound) {
+        Sounds started = sounds;
+        AudioEngine audio = started != null ? getNow(started.engine) : null;
+        AudioEngine.Sound effect = started != null ? getNow(sound.apply(started)) : null;
+        boolean played = audio != null && audio.isAvailable() && effect != null;
+        if (played) {
+            audio.play(effect);
         }
+
+        if (GameEvents.SOUND_TRIGGER.isEnabled()) {
+            GameEvents.SoundTrigger event = new GameEvents.SoundTrigger();
+            if (event.shouldCommit()) {
+                event.sound = name;
+                event.played = played;
+                event.commit();
+            }
+        }
+    }
+
+    private static <T> T getNow(CompletableFuture<T> future) {
+        return future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+// Every sprite variant rendered once per cell size into one image, so drawing a sprite is a single
+// drawImage from its slot instead of rasterizing arcs and ovals each frame. Sprite shapes and
+// colors live here rather than in the game classes, and do not depend on the theme. Slots: row 0
+// holds Pacman by direction and mouth frame, row 1 the ghosts by type and direction followed by
+// the vulnerable ghost, row 2 the power-ups.
+public class SpriteAtlas {
+    private static final Map<Integer, SpriteAtlas> ATLASES = new HashMap<>();
+    private static final int SIZE = GameSimulation.CELL_SIZE;
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Ghost.GhostType[] GHOST_TYPES = Ghost.GhostType.values();
+    private static final PowerUp.PowerUpType[] POWER_UP_TYPES = PowerUp.PowerUpType.values();
+    private static final int COLUMNS = Math.max(DIRECTIONS.length * Pacman.ANIMATION_FRAMES,
+            GHOST_TYPES.length * DIRECTIONS.length + 1);
+
+    private final int cellSize;
+    private final BufferedImage image;
+
+    public static synchronized SpriteAtlas forCellSize(int cellSize) {
+        return ATLASES.computeIfAbsent(cellSize, SpriteAtlas::new);
+    }
+
+    private SpriteAtlas(int cellSize) {
+        this.cellSize = cellSize;
+        this.image = createImage(COLUMNS * cellSize, 3 * cellSize);
+        Graphics2D g = image.createGraphics();
+        // The shapes are drawn at the game's own cell size.
+        double scale = (double) cellSize / SIZE;
+        g.scale(scale, scale);
+        for (Direction direction : DIRECTIONS) {
+            for (int frame = 0; frame < Pacman.ANIMATION_FRAMES; frame++) {
+                renderPacman(g, pacmanSlot(direction, frame) * SIZE, 0, direction, frame);
+            }
+        }
+        for (Ghost.GhostType type : GHOST_TYPES) {
+            for (Direction direction : DIRECTIONS) {
+                renderGhost(g, ghostSlot(type, direction) * SIZE, SIZE, colorOf(type), direction);
+            }
+        }
+        renderGhost(g, vulnerableSlot() * SIZE, SIZE, Color.BLUE, null);
+        for (PowerUp.PowerUpType type : POWER_UP_TYPES) {
+            g.setColor(colorOf(type));
+            g.fillOval(type.ordinal() * SIZE + 5, 2 * SIZE + 5, SIZE - 10, SIZE - 10);
+        }
+        g.dispose();
+    }
+
+    private static void renderPacman(Graphics g, int x, int y, Direction direction, int animationFrame) {
+        g.setColor(Color.YELLOW);
+        if (animationFrame == 0 || animationFrame == Pacman.ANIMATION_FRAMES - 1) {
+            g.fillOval(x, y, SIZE, SIZE);
+        } else {
+            int startAngle = 0;
+            switch (direction) {
+                case UP:
+                    startAngle = 90;
+                    break;
+                case DOWN:
+                    startAngle = 270;
+                    break;
+                case LEFT:
+                    startAngle = 180;
+                    break;
+                case RIGHT:
+                    startAngle = 0;
+                    break;
+            }
+            g.fillArc(x, y, SIZE, SIZE, startAngle + 45 - (animationFrame * 5), 270 + (animationFrame * 10));
+        }
+    }
+
+    // A vulnerable ghost has no direction and no pupils.
+    private static void renderGhost(Graphics g, int x, int y, Color color, Direction direction) {
+        g.setColor(color);
+        g.fillOval(x, y, SIZE, SIZE);
+
+        // Глаза
+        g.setColor(Color.WHITE);
+        g.fillOval(x + SIZE/4, y + SIZE/4, SIZE/4, SIZE/4);
+        g.fillOval(x + SIZE/2, y + SIZE/4, SIZE/4, SIZE/4);
+
+        // Зрачки
+        if (direction != null) {
+            g.setColor(Color.BLACK);
+            int pupilOffset = direction == Direction.LEFT ? -2 : direction == Direction.RIGHT ? 2 : 0;
+            g.fillOval(x + SIZE/4 + pupilOffset, y + SIZE/4, SIZE/8, SIZE/8);
+            g.fillOval(x + SIZE/2 + pupilOffset, y + SIZE/4, SIZE/8, SIZE/8);
+        }
+    }
+
+    private static Color colorOf(Ghost.GhostType type) {
+        switch (type) {
+            case TACTIC:
+                return Color.RED;
+            case HUNTER:
+                return Color.PINK;
+            case SCOUT:
+                return Color.CYAN;
+            default:
+                return Color.ORANGE;
+        }
+    }
+
+    private static Color colorOf(PowerUp.PowerUpType type) {
+        switch (type) {
+            case SPEED:
+                return Color.GREEN;
+            case INVINCIBILITY:
+                return Color.YELLOW;
+            default:
+                return Color.CYAN;
+        }
+    }
+
+    public void drawPacman(Graphics g, int x, int y, Direction direction, int animationFrame) {
+        drawSlot(g, x, y, pacmanSlot(direction, animationFrame), 0);
+    }
+
+    public void drawGhost(Graphics g, int x, int y, Ghost.GhostType type, boolean isVulnerable, Direction direction) {
+        drawSlot(g, x, y, isVulnerable ? vulnerableSlot() : ghostSlot(type, direction), 1);
+    }
+
+    public void drawPowerUp(Graphics g, int x, int y, PowerUp.PowerUpType type) {
+        drawSlot(g, x, y, type.ordinal(), 2);
+    }
+
+    private void drawSlot(Graphics g, int x, int y, int column, int row) {
+        int sx = column * cellSize;
+        int sy = row * cellSize;
+        g.drawImage(image, x, y, x + cellSize, y + cellSize, sx, sy, sx + cellSize, sy + cellSize, null);
+    }
+
+    private static int pacmanSlot(Direction direction, int animationFrame) {
+        return direction.ordinal() * Pacman.ANIMATION_FRAMES + animationFrame;
+    }
+
+    private static int ghostSlot(Ghost.GhostType type, Direction direction) {
+        return type.ordinal() * DIRECTIONS.length + direction.ordinal();
+    }
+
+    private static int vulnerableSlot() {
+        return GHOST_TYPES.length * DIRECTIONS.length;
+    }
+
+    private static BufferedImage createImage(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return config.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    }
+}
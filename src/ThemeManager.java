@@ -1,6 +1,13 @@
 import java.awt.*;
+import java.awt.image.IndexColorModel;
 
 public class ThemeManager {
+    // Logical palette slots; cached layers store these instead of colors.
+    public static final int BACKGROUND = 0;
+    public static final int WALL = 1;
+    public static final int PELLET = 2;
+    public static final int TEXT = 3;
+
     public enum Theme {
         CLASSIC(new Color(0, 0, 0), // фон
                 new Color(255, 255, 0), // текст
@@ -31,6 +38,7 @@ public class ThemeManager {
         public final Color wallColor;
         public final Color pelletColor;
         public final String displayName;
+        public final IndexColorModel palette;
 
         Theme(Color backgroundColor, Color textColor, Color wallColor, Color pelletColor, String displayName) {
             this.backgroundColor = backgroundColor;
@@ -38,10 +46,30 @@ public class ThemeManager {
             this.wallColor = wallColor;
             this.pelletColor = pelletColor;
             this.displayName = displayName;
+            this.palette = createPalette(backgroundColor, wallColor, pelletColor, textColor);
+        }
+
+        public Theme next() {
+            Theme[] themes = values();
+            return themes[(ordinal() + 1) % themes.length];
+        }
+    }
+
+    // Entries in slot order: BACKGROUND, WALL, PELLET, TEXT.
+    private static IndexColorModel createPalette(Color... colors) {
+        byte[] r = new byte[colors.length];
+        byte[] g = new byte[colors.length];
+        byte[] b = new byte[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            r[i] = (byte) colors[i].getRed();
+            g[i] = (byte) colors[i].getGreen();
+            b[i] = (byte) colors[i].getBlue();
         }
+        return new IndexColorModel(8, colors.length, r, g, b);
     }
 
-    private static Theme currentTheme = Theme.CLASSIC;
+    // Switched from the menu or mid-game while the render thread is drawing.
+    private static volatile Theme currentTheme = Theme.CLASSIC;
 
     public static Theme getCurrentTheme() {
         return currentTheme;
@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSchedulerTest {
+    // One revolution of the wheel is 256 ticks.
+    private static final int WHEEL_SIZE = 256;
+
+    private static void advance(GameScheduler scheduler, int ticks) {
+        for (int i = 0; i < ticks; i++) {
+            scheduler.tick();
+        }
+    }
+
+    @Test
+    void runsTaskOnItsDeadline() {
+        GameScheduler scheduler = new GameScheduler(60);
+        int[] runs = {0};
+        scheduler.schedule(3, () -> runs[0]++);
+
+        advance(scheduler, 2);
+        assertEquals(0, runs[0]);
+        scheduler.tick();
+        assertEquals(1, runs[0]);
+        advance(scheduler, WHEEL_SIZE);
+        assertEquals(1, runs[0]);
+    }
+
+    @Test
+    void cancelledTaskNeverRuns() {
+        GameScheduler scheduler = new GameScheduler(60);
+        int[] runs = {0};
+        GameScheduler.Task task = scheduler.schedule(5, () -> runs[0]++);
+        task.cancel();
+
+        advance(scheduler, 2 * WHEEL_SIZE);
+        assertEquals(0, runs[0]);
+        assertTrue(task.isCancelled());
+    }
+
+    @Test
+    void cancelAllDropsPendingTasks() {
+        GameScheduler scheduler = new GameScheduler(60);
+        int[] runs = {0};
+        GameScheduler.Task first = scheduler.schedule(1, () -> runs[0]++);
+        GameScheduler.Task second = scheduler.scheduleRepeating(10, 10, () -> runs[0]++);
+        scheduler.cancelAll();
+
+        advance(scheduler, WHEEL_SIZE);
+        assertEquals(0, runs[0]);
+        assertTrue(first.isCancelled());
+        assertTrue(second.isCancelled());
+    }
+
+    @Test
+    void delayPastOneRevolutionWaitsForItsDeadline() {
+        GameScheduler scheduler = new GameScheduler(60);
+        int delay = WHEEL_SIZE + 10;
+        List<Long> runTicks = new ArrayList<>();
+        scheduler.schedule(delay, () -> runTicks.add(scheduler.getCurrentTick()));
+
+        // The slot comes round once before the deadline; the task must stay put.
+        advance(scheduler, delay - 1);
+        assertTrue(runTicks.isEmpty());
+        scheduler.tick();
+        assertEquals(List.of((long) delay), runTicks);
+    }
+
+    @Test
+    void repeatingTaskReschedulesAcrossRevolutions() {
+        GameScheduler scheduler = new GameScheduler(60);
+        int period = WHEEL_SIZE + 1;
+        List<Long> runTicks = new ArrayList<>();
+        scheduler.scheduleRepeating(period, period, () -> runTicks.add(scheduler.getCurrentTick()));
+
+        advance(scheduler, 3 * period);
+        assertEquals(List.of((long) period, 2L * period, 3L * period), runTicks);
+    }
+
+    @Test
+    void repeatingTaskStopsOnceCancelled() {
+        GameScheduler scheduler = new GameScheduler(60);
+        int[] runs = {0};
+        GameScheduler.Task[] task = new GameScheduler.Task[1];
+        task[0] = scheduler.scheduleRepeating(WHEEL_SIZE, WHEEL_SIZE, () -> {
+            if (++runs[0] == 2) {
+                task[0].cancel();
+            }
+        });
+
+        advance(scheduler, 4 * WHEEL_SIZE);
+        assertEquals(2, runs[0]);
+    }
+
+    @Test
+    void pausedSchedulerDoesNotAdvance() {
+        GameScheduler scheduler = new GameScheduler(60);
+        int[] runs = {0};
+        scheduler.schedule(1, () -> runs[0]++);
+        scheduler.pause();
+        advance(scheduler, 5);
+        assertEquals(0, scheduler.getCurrentTick());
+        assertEquals(0, runs[0]);
+
+        scheduler.resume();
+        scheduler.tick();
+        assertEquals(1, runs[0]);
+    }
+}
@@ -0,0 +1,169 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HighScoreLogTest {
+    @TempDir
+    Path dir;
+
+    private static HighScore.Score score(String name, int points) {
+        return new HighScore.Score(name, points, 21, 21, 1000L * points, 1_700_000_000_000L + points);
+    }
+
+    private static List<HighScore.Score> load(HighScoreLog log) throws IOException {
+        List<HighScore.Score> scores = new ArrayList<>();
+        log.load(scores::add);
+        return scores;
+    }
+
+    private static List<String> names(List<HighScore.Score> scores) {
+        List<String> names = new ArrayList<>();
+        for (HighScore.Score score : scores) {
+            names.add(score.getName());
+        }
+        return names;
+    }
+
+    @Test
+    void roundTripsAppendedRecords() throws IOException {
+        Path path = dir.resolve("scores.log");
+        HighScoreLog log = new HighScoreLog(path);
+        log.append(List.of(score("ann", 10), score("bob", 20)));
+        log.append(List.of(score("cid", 30)));
+
+        HighScoreLog reopened = new HighScoreLog(path);
+        List<HighScore.Score> scores = load(reopened);
+        assertEquals(List.of("ann", "bob", "cid"), names(scores));
+        assertEquals(3, reopened.getRecordCount());
+        assertFalse(reopened.isOutdated());
+
+        HighScore.Score last = scores.get(2);
+        assertEquals(30, last.getScore());
+        assertEquals(1_700_000_000_030L, last.getTimestamp());
+    }
+
+    @Test
+    void truncatesTornTail() throws IOException {
+        Path path = dir.resolve("scores.log");
+        HighScoreLog log = new HighScoreLog(path);
+        log.append(List.of(score("ann", 10), score("bob", 20)));
+        long intact = Files.size(path);
+        log.append(List.of(score("cid", 30)));
+        // A crash in the middle of the last record.
+        long torn = intact + (Files.size(path) - intact) / 2;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(torn);
+        }
+
+        HighScoreLog reopened = new HighScoreLog(path);
+        assertEquals(List.of("ann", "bob"), names(load(reopened)));
+        assertEquals(intact, Files.size(path));
+
+        // The next record goes right after the last intact one.
+        reopened.append(List.of(score("dan", 40)));
+        assertEquals(List.of("ann", "bob", "dan"), names(load(new HighScoreLog(path))));
+    }
+
+    @Test
+    void truncatesCorruptTail() throws IOException {
+        Path path = dir.resolve("scores.log");
+        HighScoreLog log = new HighScoreLog(path);
+        log.append(List.of(score("ann", 10)));
+        long intact = Files.size(path);
+        log.append(List.of(score("bob", 20)));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 6] ^= 0x55;
+        Files.write(path, bytes);
+
+        assertEquals(List.of("ann"), names(load(new HighScoreLog(path))));
+        assertEquals(intact, Files.size(path));
+    }
+
+    @Test
+    void startsOverAfterTornHeader() throws IOException {
+        Path path = dir.resolve("scores.log");
+        Files.write(path, new byte[] {0x50, 0x4D, 0x48});
+
+        HighScoreLog log = new HighScoreLog(path);
+        assertTrue(load(log).isEmpty());
+        log.append(List.of(score("ann", 10)));
+        assertEquals(List.of("ann"), names(load(new HighScoreLog(path))));
+    }
+
+    @Test
+    void movesUnreadableLogAside() throws IOException {
+        Path path = dir.resolve("scores.log");
+        byte[] garbage = "not a score log at all".getBytes();
+        Files.write(path, garbage);
+
+        HighScoreLog log = new HighScoreLog(path);
+        assertTrue(load(log).isEmpty());
+        assertFalse(Files.exists(path));
+        assertArrayEquals(garbage, Files.readAllBytes(dir.resolve("scores.log.unreadable")));
+
+        log.append(List.of(score("ann", 10)));
+        assertEquals(List.of("ann"), names(load(new HighScoreLog(path))));
+    }
+
+    @Test
+    void compactionKeepsEachRetainedScoreOnce() throws IOException {
+        Path path = dir.resolve("scores.log");
+        HighScoreLog log = new HighScoreLog(path);
+        List<HighScore.Score> retained = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            HighScore.Score score = score("p" + i, 10 * i);
+            retained.add(score);
+            log.append(List.of(score));
+        }
+        log.compact(retained);
+        log.compact(retained);
+        assertEquals(5, log.getRecordCount());
+
+        HighScoreLog reopened = new HighScoreLog(path);
+        assertEquals(names(retained), names(load(reopened)));
+        assertEquals(5, reopened.getRecordCount());
+        assertFalse(Files.exists(dir.resolve("scores.log.tmp")));
+    }
+
+    // The writer's order of events: a batch is appended while newer scores are already on the
+    // leaderboard but still queued. Compacting must leave those to their own append.
+    @Test
+    void compactionLeavesQueuedScoresToTheirBatch() throws IOException {
+        Path path = dir.resolve("scores.log");
+        HighScoreLog log = new HighScoreLog(path);
+        Leaderboard leaderboard = new Leaderboard(10);
+        Set<HighScore.Score> unwritten = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        List<HighScore.Score> written = List.of(score("ann", 10), score("bob", 20));
+        List<HighScore.Score> queued = List.of(score("cid", 30));
+        for (HighScore.Score score : written) {
+            leaderboard.add(score);
+        }
+        for (HighScore.Score score : queued) {
+            leaderboard.add(score);
+            unwritten.add(score);
+        }
+
+        log.append(written);
+        List<HighScore.Score> retained = leaderboard.all();
+        retained.removeIf(unwritten::contains);
+        log.compact(retained);
+        log.append(queued);
+
+        List<String> loaded = names(load(new HighScoreLog(path)));
+        Collections.sort(loaded);
+        assertEquals(List.of("ann", "bob", "cid"), loaded);
+    }
+}
@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedScoresTest {
+    private static List<String> names(List<HighScore.Score> scores) {
+        List<String> names = new ArrayList<>();
+        for (HighScore.Score score : scores) {
+            names.add(score.getName());
+        }
+        return names;
+    }
+
+    @Test
+    void insertReturnsRankBestFirst() {
+        RankedScores ranked = new RankedScores();
+        assertEquals(1, ranked.insert(new HighScore.Score("mid", 50)));
+        assertEquals(1, ranked.insert(new HighScore.Score("top", 90)));
+        assertEquals(3, ranked.insert(new HighScore.Score("low", 10)));
+        assertEquals(2, ranked.insert(new HighScore.Score("second", 70)));
+
+        assertEquals(List.of("top", "second", "mid", "low"), names(ranked.top(10)));
+        assertEquals(List.of("top", "second"), names(ranked.top(2)));
+        assertEquals(4, ranked.size());
+    }
+
+    @Test
+    void tiesKeepArrivalOrder() {
+        RankedScores ranked = new RankedScores();
+        assertEquals(1, ranked.insert(new HighScore.Score("first", 50)));
+        assertEquals(2, ranked.insert(new HighScore.Score("second", 50)));
+        assertEquals(1, ranked.insert(new HighScore.Score("better", 60)));
+        assertEquals(4, ranked.insert(new HighScore.Score("third", 50)));
+
+        assertEquals(List.of("better", "first", "second", "third"), names(ranked.top(10)));
+    }
+
+    @Test
+    void rankOfPutsTiesBehindExistingScores() {
+        RankedScores ranked = new RankedScores();
+        assertEquals(1, ranked.rankOf(0));
+        ranked.insert(new HighScore.Score("a", 30));
+        ranked.insert(new HighScore.Score("b", 20));
+        ranked.insert(new HighScore.Score("c", 20));
+
+        assertEquals(1, ranked.rankOf(31));
+        assertEquals(2, ranked.rankOf(30));
+        assertEquals(4, ranked.rankOf(20));
+        assertEquals(4, ranked.rankOf(5));
+    }
+
+    @Test
+    void removeLowestDropsTheLatestOfTheLowestTie() {
+        RankedScores ranked = new RankedScores();
+        ranked.insert(new HighScore.Score("high", 40));
+        ranked.insert(new HighScore.Score("older", 10));
+        ranked.insert(new HighScore.Score("newer", 10));
+
+        ranked.removeLowest();
+        assertEquals(List.of("high", "older"), names(ranked.top(10)));
+        ranked.removeLowest();
+        ranked.removeLowest();
+        assertEquals(0, ranked.size());
+        ranked.removeLowest();
+        assertTrue(ranked.top(10).isEmpty());
+    }
+
+    @Test
+    void matchesStableSortOnRandomScores() {
+        Random random = new Random(42);
+        RankedScores ranked = new RankedScores();
+        List<HighScore.Score> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            HighScore.Score score = new HighScore.Score("p" + i, random.nextInt(100));
+            int rank = ranked.insert(score);
+            // A stable sort puts the new score after every score at least as high.
+            int position = 0;
+            while (position < expected.size() && expected.get(position).getScore() >= score.getScore()) {
+                position++;
+            }
+            expected.add(position, score);
+            assertEquals(position + 1, rank);
+        }
+        assertEquals(names(expected), names(ranked.top(expected.size())));
+    }
+}
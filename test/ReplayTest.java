@@ -0,0 +1,90 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void writeThenReadKeepsHeaderAndEvents() throws IOException {
+        Replay replay = new Replay(31, 21, 5, 12, 0x1234_5678_9ABC_DEF0L, -7L);
+        replay.record(0, Direction.LEFT);
+        replay.record(1, Direction.UP);
+        // Gaps wide enough to need multi-byte varints.
+        replay.record(200, Direction.RIGHT);
+        replay.record(70_000, Direction.DOWN);
+        replay.record(5_000_000_000L, Direction.LEFT);
+        replay.setEndTick(5_000_000_100L);
+
+        Path path = dir.resolve("game.replay");
+        replay.write(path);
+        Replay read = Replay.read(path);
+
+        assertEquals(31, read.getWidth());
+        assertEquals(21, read.getHeight());
+        assertEquals(5, read.getLevels());
+        assertEquals(12, read.getSwarm());
+        assertEquals(5, read.getEventCount());
+        assertEquals(5_000_000_100L, read.getEndTick());
+
+        // Seeds and event ticks have no getters; writing again must give the same bytes.
+        Path again = dir.resolve("again.replay");
+        read.write(again);
+        assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(again));
+    }
+
+    @Test
+    void playbackOfReadReplayReproducesTheGame() throws IOException {
+        Replay replay = Replay.create(15, 15, 2, 0);
+        GameSimulation recorded = replay.createSimulation();
+        recorded.setInputSource(replay.recording(new BotInput(new Random(1))));
+        long maxTicks = 20L * GameSimulation.TICKS_PER_SECOND;
+        while (!recorded.isFinished() && recorded.getTickCount() < maxTicks) {
+            recorded.tick();
+        }
+        replay.setEndTick(recorded.getTickCount());
+        assertTrue(replay.getEventCount() > 0);
+
+        Path path = dir.resolve("bot.replay");
+        replay.write(path);
+        Replay read = Replay.read(path);
+        GameSimulation played = read.createSimulation();
+        played.setInputSource(read.playback());
+        while (!played.isFinished() && played.getTickCount() < read.getEndTick()) {
+            played.tick();
+        }
+
+        assertEquals(recorded.getTickCount(), played.getTickCount());
+        assertEquals(recorded.getScore(), played.getScore());
+        assertEquals(recorded.getLives(), played.getLives());
+        assertEquals(recorded.getLevel().getNumber(), played.getLevel().getNumber());
+        assertEquals(recorded.getPacman().getX(), played.getPacman().getX());
+        assertEquals(recorded.getPacman().getY(), played.getPacman().getY());
+        recorded.close();
+        played.close();
+    }
+
+    @Test
+    void rejectsFileThatIsNotAReplay() throws IOException {
+        Path path = dir.resolve("other.bin");
+        Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> Replay.read(path));
+    }
+
+    @Test
+    void rejectsOtherFormatVersion() throws IOException {
+        Path path = dir.resolve("future.replay");
+        new Replay(15, 15, 1, 0, 1L, 2L).write(path);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[4] = 2;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> Replay.read(path));
+    }
+}